@@ -2,16 +2,26 @@ package com.nexus.controller;
 
 import com.nexus.dto.CreateEventRequest;
 import com.nexus.dto.CreateEventResponse;
+import com.nexus.dto.EventChangesResponse;
+import com.nexus.dto.EventOccurrenceResponse;
+import com.nexus.dto.EventPageResponse;
 import com.nexus.dto.EventResponse;
 import com.nexus.dto.UpdateEventRequest;
 import com.nexus.service.EventService;
+import com.nexus.service.EventStreamBroadcaster;
+import com.nexus.service.ResourceVersions;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -22,6 +32,8 @@ import java.util.List;
 public class EventController {
     
     private final EventService eventService;
+    private final ResourceVersions resourceVersions;
+    private final EventStreamBroadcaster eventStreamBroadcaster;
     
     /**
      * CU14 - Crear evento
@@ -43,9 +55,13 @@ public class EventController {
     
     /**
      * Obtener todos los eventos de un usuario
+     * Responde 304 si el If-None-Match coincide con la versión actual del calendario
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<EventResponse>> getUserEvents(@PathVariable Long userId) {
+    public ResponseEntity<List<EventResponse>> getUserEvents(@PathVariable Long userId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.CALENDAR, userId))) {
+            return null;
+        }
         log.info("Obteniendo eventos para usuario: {}", userId);
         
         List<EventResponse> events = eventService.getUserEvents(userId);
@@ -53,11 +69,49 @@ public class EventController {
         return ResponseEntity.ok(events);
     }
     
+    /**
+     * Obtener las ocurrencias concretas (series recurrentes expandidas) en un rango [from, to)
+     */
+    @GetMapping("/user/{userId}/occurrences")
+    public ResponseEntity<List<EventOccurrenceResponse>> getUserOccurrences(
+            @PathVariable Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        
+        log.info("Obteniendo ocurrencias para usuario {} entre {} y {}", userId, from, to);
+        
+        List<EventOccurrenceResponse> occurrences = eventService.getUserOccurrences(userId, from, to);
+        
+        return ResponseEntity.ok(occurrences);
+    }
+    
+    /**
+     * Obtener una página de eventos del calendario compartido en [from, to)
+     * Paginación por cursor: enviar el nextCursor de la respuesta anterior
+     */
+    @GetMapping("/user/{userId}/window")
+    public ResponseEntity<EventPageResponse> getUserEventsWindow(
+            @PathVariable Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        
+        log.info("Obteniendo página de eventos para usuario {} entre {} y {}", userId, from, to);
+        
+        EventPageResponse page = eventService.getUserEventsWindow(userId, from, to, cursor, limit);
+        
+        return ResponseEntity.ok(page);
+    }
+    
     /**
      * Obtener eventos pendientes de aprobación para un usuario
      */
     @GetMapping("/user/{userId}/pending-approval")
-    public ResponseEntity<List<EventResponse>> getPendingApprovalEvents(@PathVariable Long userId) {
+    public ResponseEntity<List<EventResponse>> getPendingApprovalEvents(@PathVariable Long userId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.PENDING_APPROVAL, userId))) {
+            return null;
+        }
         log.info("Obteniendo eventos pendientes de aprobación para usuario: {}", userId);
         
         List<EventResponse> pendingEvents = eventService.getPendingApprovalEvents(userId);
@@ -65,6 +119,51 @@ public class EventController {
         return ResponseEntity.ok(pendingEvents);
     }
     
+    /**
+     * Obtener una página de eventos pendientes de aprobación (más recientes primero)
+     */
+    @GetMapping("/user/{userId}/pending-approval/page")
+    public ResponseEntity<EventPageResponse> getPendingApprovalEventsPage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        
+        log.info("Obteniendo página de eventos pendientes de aprobación para usuario: {}", userId);
+        
+        EventPageResponse page = eventService.getPendingApprovalEventsPage(userId, cursor, limit);
+        
+        return ResponseEntity.ok(page);
+    }
+    
+    /**
+     * Cambios del calendario compartido desde el seq indicado (sincronización por deltas)
+     * since debe ir acompañado del linkId de la respuesta anterior; sin since, sin linkId
+     * o si el vínculo cambió, responde resetRequired con el calendario completo.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<EventChangesResponse> getEventChanges(
+            @RequestParam Long userId,
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Long linkId,
+            @RequestParam(required = false) Integer limit) {
+        
+        log.info("Obteniendo cambios de eventos para usuario {} desde seq {}", userId, since);
+        
+        EventChangesResponse changes = eventService.getEventChanges(userId, linkId, since, limit);
+        
+        return ResponseEntity.ok(changes);
+    }
+    
+    /**
+     * Canal Server-Sent Events con los avisos de cambios del calendario compartido
+     * No consulta la base de datos: con OSIV la sesión viviría lo que dure la conexión.
+     */
+    @GetMapping(value = "/stream/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEventChanges(@PathVariable Long userId) {
+        log.info("Abriendo canal de cambios para usuario {}", userId);
+        return eventStreamBroadcaster.subscribe(userId);
+    }
+    
     /**
      * Contar eventos pendientes de aprobación
      */
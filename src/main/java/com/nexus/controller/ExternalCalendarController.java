@@ -1,18 +1,27 @@
 package com.nexus.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.nexus.dto.*;
+import com.nexus.service.ExternalCalendarMaintenanceService;
 import com.nexus.service.ExternalCalendarService;
+import com.nexus.service.SyncJobService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.net.URI;
 import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/calendars/external")
@@ -21,6 +30,8 @@ import java.util.Map;
 public class ExternalCalendarController {
 
     private final ExternalCalendarService externalCalendarService;
+    private final SyncJobService syncJobService;
+    private final ExternalCalendarMaintenanceService externalCalendarMaintenanceService;
 
     /**
      * RF-19: Vincular un calendario externo
@@ -107,24 +118,154 @@ public class ExternalCalendarController {
 
     /**
      * RF-20 & RF-21: Sincronizar eventos desde el dispositivo
-     * POST /api/calendars/external/sync/:userId
+     * POST /api/calendars/external/sync/:userId?mode=incremental|full&snapshotCalendarIds=1,2
+     *
+     * En modo full cada calendario del payload (y los de snapshotCalendarIds, que
+     * permiten enviar un calendario que quedó vacío) se toma como snapshot completo
      */
     @PostMapping("/sync/{userId}")
-    public ResponseEntity<Map<String, Object>> syncEvents(
+    public ResponseEntity<?> syncEvents(
         @PathVariable Long userId,
-        @Valid @RequestBody List<SyncEventRequest> events
+        @Valid @RequestBody List<SyncEventRequest> events,
+        @RequestParam(defaultValue = "incremental") String mode,
+        @RequestParam(required = false) List<Long> snapshotCalendarIds,
+        @RequestParam(defaultValue = "false") boolean async
     ) {
         try {
-            log.info("POST /calendars/external/sync/{} - Sincronizando {} eventos", 
-                userId, events.size());
-            Map<String, Object> result = externalCalendarService.syncEvents(userId, events);
+            log.info("POST /calendars/external/sync/{} - Sincronizando {} eventos (modo {})", 
+                userId, events.size(), mode);
+            if (!"full".equalsIgnoreCase(mode) && !"incremental".equalsIgnoreCase(mode)) {
+                throw new IllegalArgumentException("Modo de sincronización desconocido: " + mode);
+            }
+            Set<Long> snapshotIds = new HashSet<>();
+            if ("full".equalsIgnoreCase(mode)) {
+                events.forEach(event -> snapshotIds.add(event.getExternalCalendarId()));
+                if (snapshotCalendarIds != null) {
+                    snapshotIds.addAll(snapshotCalendarIds);
+                }
+                snapshotIds.remove(null);
+            }
+            if (async) {
+                // Encolar y responder de inmediato con el id del trabajo
+                SyncJobResponse job = syncJobService.submit(userId, events, snapshotIds);
+                URI statusUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/calendars/external/sync/jobs/{jobId}")
+                    .buildAndExpand(job.getJobId())
+                    .toUri();
+                job.setStatusUrl(statusUri.toString());
+                return ResponseEntity.accepted().location(statusUri).body(job);
+            }
+            Map<String, Object> result = externalCalendarService.syncEvents(userId, events, snapshotIds);
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            log.error("Solicitud de sincronización inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn("Sincronización rechazada: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             log.error("Error sincronizando eventos: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Sincronización delta: solo los cambios desde el último cursor de cada calendario
+     * POST /api/calendars/external/sync/:userId/delta
+     */
+    @PostMapping("/sync/{userId}/delta")
+    public ResponseEntity<List<CalendarDeltaResult>> syncDelta(
+        @PathVariable Long userId,
+        @Valid @RequestBody List<CalendarDeltaRequest> deltas
+    ) {
+        try {
+            log.info("POST /calendars/external/sync/{}/delta - {} calendarios", userId, deltas.size());
+            List<CalendarDeltaResult> results = externalCalendarService.syncDelta(userId, deltas);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            log.error("Solicitud de sincronización delta inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error en sincronización delta: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Árbol de hashes de un calendario para reconciliación
+     * GET /api/calendars/external/merkle/:userId/:calendarId?prefix=yyyy-MM
+     */
+    @GetMapping("/merkle/{userId}/{calendarId}")
+    public ResponseEntity<MerkleNodeResponse> getMerkleNode(
+        @PathVariable Long userId,
+        @PathVariable Long calendarId,
+        @RequestParam(defaultValue = "") String prefix
+    ) {
+        try {
+            MerkleNodeResponse node = externalCalendarService.getMerkleNode(userId, calendarId, prefix);
+            return ResponseEntity.ok(node);
+        } catch (IllegalArgumentException e) {
+            log.error("Consulta de árbol de hashes inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error obteniendo árbol de hashes: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Consultar el estado y resultado de una sincronización asíncrona
+     * GET /api/calendars/external/sync/jobs/:jobId
+     */
+    @GetMapping("/sync/jobs/{jobId}")
+    public ResponseEntity<SyncJobResponse> getSyncJob(@PathVariable String jobId) {
+        return syncJobService.getJob(jobId)
+            .map(job -> {
+                job.setStatusUrl(ServletUriComponentsBuilder.fromCurrentRequestUri().toUriString());
+                return ResponseEntity.ok(job);
+            })
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Sincronización en streaming para payloads muy grandes
+     * POST /api/calendars/external/sync/:userId/stream?mode=incremental|full&snapshotCalendarIds=1,2
+     *
+     * El cuerpo es el mismo arreglo JSON que /sync, pero se lee por partes y se
+     * confirma en bloques. En modo full los calendarios snapshot deben indicarse
+     * en snapshotCalendarIds porque el payload no se conoce por adelantado.
+     */
+    @PostMapping(value = "/sync/{userId}/stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> syncEventsStream(
+        @PathVariable Long userId,
+        @RequestParam(defaultValue = "incremental") String mode,
+        @RequestParam(required = false) List<Long> snapshotCalendarIds,
+        HttpServletRequest request
+    ) {
+        try {
+            log.info("POST /calendars/external/sync/{}/stream - Sincronizando en streaming (modo {})", 
+                userId, mode);
+            Set<Long> snapshotIds = new HashSet<>();
+            if ("full".equalsIgnoreCase(mode)) {
+                if (snapshotCalendarIds == null || snapshotCalendarIds.isEmpty()) {
+                    throw new IllegalArgumentException("El modo full en streaming requiere snapshotCalendarIds");
+                }
+                snapshotIds.addAll(snapshotCalendarIds);
+            } else if (!"incremental".equalsIgnoreCase(mode)) {
+                throw new IllegalArgumentException("Modo de sincronización desconocido: " + mode);
+            }
+            Map<String, Object> result = externalCalendarService
+                .syncEventsStream(userId, request.getInputStream(), snapshotIds);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            log.error("Solicitud de sincronización inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error sincronizando eventos en streaming: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * RF-23: Obtener eventos externos con privacidad aplicada
      * GET /api/calendars/external/events/:userId
@@ -193,6 +334,40 @@ public class ExternalCalendarController {
         }
     }
 
+    /**
+     * Cruce de disponibilidad entre N usuarios
+     * GET /api/calendars/external/mutual-availability/group?userIds=1,2,3
+     */
+    @GetMapping("/mutual-availability/group")
+    public ResponseEntity<List<AvailabilitySlot>> findGroupAvailability(
+        @RequestParam List<Long> userIds,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startDate,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endDate,
+        @RequestParam(defaultValue = "60") Integer minDurationMinutes
+    ) {
+        try {
+            log.info("GET /calendars/external/mutual-availability/group - Usuarios {}", userIds);
+            List<AvailabilitySlot> commonSlots = externalCalendarService
+                .findCommonFreeSlots(userIds, startDate, endDate, minDurationMinutes);
+            return ResponseEntity.ok(commonSlots);
+        } catch (IllegalArgumentException e) {
+            log.error("Solicitud inválida de disponibilidad grupal: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error buscando disponibilidad grupal: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Métricas del mantenimiento programado de eventos externos
+     * GET /api/calendars/external/maintenance/stats
+     */
+    @GetMapping("/maintenance/stats")
+    public ResponseEntity<Map<String, Object>> getMaintenanceStats() {
+        return ResponseEntity.ok(externalCalendarMaintenanceService.getStats());
+    }
+
     /**
      * Health check
      */
@@ -3,9 +3,11 @@ package com.nexus.controller;
 import com.nexus.dto.LinkCodeResponse;
 import com.nexus.dto.LinkStatusResponse;
 import com.nexus.service.LinkService;
+import com.nexus.service.ResourceVersions;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/link")
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 public class LinkController {
     
     private final LinkService linkService;
+    private final ResourceVersions resourceVersions;
     
     /**
      * CU08 - Generar código de vínculo
@@ -41,7 +44,10 @@ public class LinkController {
      * GET /api/link/status/{userId}
      */
     @GetMapping("/status/{userId}")
-    public ResponseEntity<LinkStatusResponse> getLinkStatus(@PathVariable Long userId) {
+    public ResponseEntity<LinkStatusResponse> getLinkStatus(@PathVariable Long userId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.LINK_STATUS, userId))) {
+            return null;
+        }
         LinkStatusResponse response = linkService.getLinkStatus(userId);
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,27 @@
+package com.nexus.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarDeltaRequest {
+    @NotNull(message = "External calendar ID is required")
+    private Long externalCalendarId;
+
+    // Último cursor que el dispositivo recibió para este calendario
+    @NotNull(message = "Since cursor is required")
+    private Long sinceCursor;
+
+    @Valid
+    private List<SyncEventRequest> upserts = new ArrayList<>();
+
+    private List<String> deletedDeviceEventIds = new ArrayList<>();
+}
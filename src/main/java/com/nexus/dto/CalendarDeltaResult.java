@@ -0,0 +1,29 @@
+package com.nexus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarDeltaResult {
+    private Long externalCalendarId;
+
+    // Cursor actual del calendario; el dispositivo lo envía en la próxima sincronización
+    private Long cursor;
+
+    // true si el cursor del dispositivo no coincide: debe enviar un snapshot completo
+    private Boolean resyncRequired;
+
+    private Integer created;
+    private Integer updated;
+    private Integer unchanged;
+    private Integer deleted;
+
+    // Eventos sin deviceEventId descartados y eventos que no se pudieron escribir
+    private Integer skipped;
+    private Integer failed;
+}
@@ -0,0 +1,51 @@
+package com.nexus.dto;
+
+import com.nexus.entity.EventChange;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Cambios del calendario compartido desde un número de secuencia
+ *
+ * Si resetRequired es true el cliente debe descartar su copia local: events
+ * trae el calendario completo y latestSeq el punto desde el que seguir.
+ * Si no, changes trae la última operación de cada evento modificado y
+ * nextSince el valor a enviar en la siguiente llamada
+ * (siempre junto con linkId: sin él, o si cambió, se responde resetRequired).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventChangesResponse {
+
+    private Long linkId;
+    private Long latestSeq;
+    private Boolean resetRequired;
+
+    // Solo con resetRequired
+    private List<EventResponse> events;
+
+    private List<Change> changes;
+    private Long nextSince;
+    private Boolean hasMore;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private Long seq;
+        private Long eventId;
+        private EventChange.ChangeOp op;
+        private Instant changedAt;
+
+        // Estado actual del evento (solo en UPSERT)
+        private EventResponse event;
+    }
+}
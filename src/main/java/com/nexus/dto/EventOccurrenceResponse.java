@@ -0,0 +1,38 @@
+package com.nexus.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.nexus.entity.EventStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventOccurrenceResponse {
+    
+    // Evento (o serie) al que pertenece la ocurrencia
+    private Long eventId;
+    private String title;
+    
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX", timezone = "UTC")
+    private Instant occurrenceStart;
+    
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX", timezone = "UTC")
+    private Instant occurrenceEnd;
+    
+    private String location;
+    private String category;
+    private String color;
+    private EventStatus status;
+    private Long creatorUserId;
+    private Long linkId;
+    
+    // Información de la serie
+    private Boolean isRecurring;
+    private String recurrencePattern;
+}
@@ -0,0 +1,21 @@
+package com.nexus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventPageResponse {
+    
+    private List<EventResponse> events;
+    
+    // Cursor opaco para pedir la siguiente página (null si no hay más)
+    private String nextCursor;
+    private Boolean hasMore;
+}
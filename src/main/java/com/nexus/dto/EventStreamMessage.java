@@ -0,0 +1,25 @@
+package com.nexus.dto;
+
+import com.nexus.entity.EventChange;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aviso de cambio en el calendario compartido enviado por /events/stream
+ *
+ * Solo identifica el cambio: el cliente pide el detalle a /events/changes
+ * con su último seq (si le falta alguno intermedio lo recibe ahí también).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventStreamMessage {
+
+    private Long linkId;
+    private Long seq;
+    private Long eventId;
+    private EventChange.ChangeOp op;
+}
@@ -19,6 +19,7 @@ public class ExternalCalendarDTO {
     private Boolean syncEnabled;
     private String privacyMode;
     private Instant lastSync;
+    private Long syncCursor;
     private Boolean isActive;
 
     public static ExternalCalendarDTO fromEntity(ExternalCalendar calendar) {
@@ -31,6 +32,7 @@ public class ExternalCalendarDTO {
         dto.setSyncEnabled(calendar.getSyncEnabled());
         dto.setPrivacyMode(calendar.getPrivacyMode().name());
         dto.setLastSync(calendar.getLastSync());
+        dto.setSyncCursor(calendar.getSyncCursor());
         dto.setIsActive(calendar.getIsActive());
         return dto;
     }
@@ -27,6 +27,8 @@ public class ExternalEventDTO {
     private Instant rruleUntilUtc;
     private Integer rruleCount;
     private String visibility;
+    private Boolean isOccurrence; // true si es una instancia expandida de una serie RRULE
+    private Boolean recurrenceUnexpanded; // true si la RRULE no se pudo interpretar: solo se incluye la primera instancia
 
     public static ExternalEventDTO fromEntity(ExternalEvent event, Long ownerId) {
         ExternalEventDTO dto = new ExternalEventDTO();
@@ -45,6 +47,8 @@ public class ExternalEventDTO {
         dto.setRruleUntilUtc(event.getRruleUntilUtc());
         dto.setRruleCount(event.getRruleCount());
         dto.setVisibility(event.getVisibility().name());
+        dto.setIsOccurrence(false);
+        dto.setRecurrenceUnexpanded(false);
         return dto;
     }
 
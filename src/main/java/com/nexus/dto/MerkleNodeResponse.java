@@ -0,0 +1,54 @@
+package com.nexus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Nodo del árbol de hashes de un calendario externo
+ *
+ * El dispositivo calcula el mismo árbol en local y solo desciende por los
+ * prefijos cuyo hash no coincide:
+ *   hoja   = primeros 8 bytes (big-endian) de SHA-256(deviceEventId + "|" + syncHash)
+ *   bucket = suma módulo 2^64 de las hojas que contiene, en hexadecimal de 16 dígitos
+ * Los eventos se agrupan por la fecha UTC de su inicio.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerkleNodeResponse {
+    private Long calendarId;
+
+    // "" (raíz), "yyyy", "yyyy-MM" o "yyyy-MM-dd"
+    private String prefix;
+
+    private String hash;
+    private Integer count;
+
+    // Buckets del siguiente nivel (vacío en el nivel de día)
+    private List<Child> children;
+
+    // Eventos del día (solo en el nivel de día)
+    private List<EventLeaf> events;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Child {
+        private String key;
+        private String hash;
+        private Integer count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EventLeaf {
+        private String deviceEventId;
+        private String syncHash;
+    }
+}
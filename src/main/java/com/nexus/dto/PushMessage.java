@@ -0,0 +1,22 @@
+package com.nexus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Notificación push dirigida a un token de Expo
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushMessage {
+    private String to;
+    private String title;
+    private String body;
+    private Map<String, String> data;
+}
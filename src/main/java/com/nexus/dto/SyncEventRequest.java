@@ -29,6 +29,8 @@ public class SyncEventRequest {
 
     private String location;
     private String description;
+    private String startTimezone; // TZID del dispositivo (p. ej. America/Mexico_City); UTC si no se envía
+    private String endTimezone;
     private Boolean isAllDay = false;
     private String recurrenceRule;
     private Instant rruleDtstartUtc; // Fecha de inicio de la recurrencia
@@ -0,0 +1,33 @@
+package com.nexus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncJobResponse {
+    
+    private String jobId;
+    private Long userId;
+    
+    // QUEUED, RUNNING, COMPLETED o FAILED
+    private String status;
+    private Integer eventCount;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    
+    // Mismo resultado que la sincronización síncrona (solo al completar)
+    private Map<String, Object> result;
+    private String error;
+    
+    // URL para consultar el estado del trabajo
+    private String statusUrl;
+}
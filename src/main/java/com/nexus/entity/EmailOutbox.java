@@ -0,0 +1,79 @@
+package com.nexus.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.Instant;
+
+/**
+ * Email pendiente de envío
+ * Se escribe en la misma transacción que el token que contiene; un grupo fijo
+ * de hilos lo envía después del commit, con reintentos. Tras agotar los
+ * intentos queda en DEAD para revisarlo a mano.
+ */
+@Entity
+@Table(name = "email_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class EmailOutbox implements OutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 30)
+    private EmailType type;
+
+    @Column(name = "recipient", nullable = false, length = 255)
+    private String recipient;
+
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload; // JSON con los datos de la plantilla según el tipo; se borra al enviarse
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private EmailStatus status = EmailStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    @Override
+    public void markExhausted() {
+        this.status = EmailStatus.DEAD;
+    }
+
+    public enum EmailType {
+        VERIFICATION,
+        PASSWORD_RESET
+    }
+
+    public enum EmailStatus {
+        PENDING,
+        SENT,
+        DEAD
+    }
+}
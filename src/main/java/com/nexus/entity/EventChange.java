@@ -0,0 +1,48 @@
+package com.nexus.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entrada del diario de cambios de eventos de un vínculo
+ * seq es consecutivo por vínculo y sigue el orden de commit (ver EventChangeJournal).
+ * No referencia a events ni a user_links: sobrevive a los borrados físicos.
+ */
+@Entity
+@Table(name = "event_change_journal")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "link_id", nullable = false)
+    private Long linkId;
+
+    @Column(name = "seq", nullable = false)
+    private Long seq;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "op", nullable = false, length = 10)
+    private ChangeOp op;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    public enum ChangeOp {
+        UPSERT,
+        DELETE
+    }
+}
@@ -55,6 +55,9 @@ public class ExternalCalendar {
     @Column(name = "last_sync")
     private Instant lastSync;
 
+    @Column(name = "sync_cursor", nullable = false)
+    private Long syncCursor = 0L; // Cursor monótono: avanza cada vez que cambian los eventos del calendario
+
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
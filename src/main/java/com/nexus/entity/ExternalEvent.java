@@ -85,6 +85,9 @@ public class ExternalEvent {
     @Column(name = "sync_hash", length = 64)
     private String syncHash; // Hash para detectar cambios más eficientemente
 
+    @Column(name = "content_hash", length = 44)
+    private String contentHash; // Hash normalizado para detectar el mismo evento en varios calendarios
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -0,0 +1,60 @@
+package com.nexus.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.Instant;
+
+/**
+ * Entidad que mapea la tabla 'calendar_event_exceptions' existente en la BD
+ * Instancias canceladas o movidas de un evento externo recurrente
+ */
+@Entity
+@Table(name = "calendar_event_exceptions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class ExternalEventException {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Long externalEventId;
+
+    @Column(name = "occurrence_start_utc", nullable = false)
+    private Instant occurrenceStart; // Inicio original de la instancia afectada
+
+    @Column(name = "is_cancelled", nullable = false)
+    private Boolean isCancelled = false;
+
+    @Column(name = "new_starts_at_utc")
+    private Instant newStartDatetime;
+
+    @Column(name = "new_ends_at_utc")
+    private Instant newEndDatetime;
+
+    @Column(name = "new_start_tzid", length = 64)
+    private String newStartTimezone;
+
+    @Column(name = "new_end_tzid", length = 64)
+    private String newEndTimezone;
+
+    @Column(name = "new_title", length = 240)
+    private String newTitle;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
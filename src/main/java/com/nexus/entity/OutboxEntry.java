@@ -0,0 +1,25 @@
+package com.nexus.entity;
+
+import java.time.Instant;
+
+/**
+ * Fila de una cola persistente (outbox) que se reclama, se envía y se reintenta
+ * Lo implementan EmailOutbox y NotificationOutbox; los getters y setters los genera Lombok.
+ */
+public interface OutboxEntry {
+
+    Long getId();
+
+    Integer getAttempts();
+
+    void setAttempts(Integer attempts);
+
+    void setNextAttemptAt(Instant nextAttemptAt);
+
+    void setLastError(String lastError);
+
+    /**
+     * Marca la fila como descartada tras agotar los intentos
+     */
+    void markExhausted();
+}
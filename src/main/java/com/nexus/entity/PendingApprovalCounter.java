@@ -0,0 +1,33 @@
+package com.nexus.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Contador de eventos pendientes de aprobación por usuario
+ * Se mantiene con deltas en las mismas transacciones que modifican eventos y
+ * un reconciliador lo recalcula periódicamente desde la tabla events.
+ */
+@Entity
+@Table(name = "user_pending_counters")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingApprovalCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "pending_count", nullable = false)
+    private Long pendingCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.nexus.repository;
+
+import com.nexus.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends OutboxRepository<EmailOutbox> {
+
+    // Bloque de pendientes vencidos; SKIP LOCKED reparte las filas entre los hilos de envío
+    @Override
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDueBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    // El payload lleva el código en claro: no se conserva una vez enviado
+    @Override
+    @Modifying
+    @Query("UPDATE EmailOutbox o SET o.status = 'SENT', o.sentAt = :sentAt, o.lastError = NULL, o.payload = NULL WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Override
+    @Modifying
+    @Query(value = "DELETE FROM email_outbox WHERE status = 'SENT' AND sent_at < :cutoff ORDER BY id LIMIT :limit", nativeQuery = true)
+    int purgeSentChunk(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    long countByStatus(EmailOutbox.EmailStatus status);
+}
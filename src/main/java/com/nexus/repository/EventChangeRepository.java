@@ -0,0 +1,59 @@
+package com.nexus.repository;
+
+import com.nexus.entity.EventChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventChangeRepository extends JpaRepository<EventChange, Long> {
+
+    // Bloqueo exclusivo de la fila del vínculo, tomado antes de insertar en events
+    @Query(value = "SELECT id FROM user_links WHERE id = :linkId FOR UPDATE", nativeQuery = true)
+    Long lockLink(@Param("linkId") Long linkId);
+
+    // Reserva el siguiente seq del vínculo; el bloqueo de la fila serializa a los escritores hasta el commit
+    @Modifying
+    @Query(value = "UPDATE user_links SET change_seq = change_seq + 1 WHERE id = :linkId", nativeQuery = true)
+    int incrementLinkSeq(@Param("linkId") Long linkId);
+
+    @Query(value = "SELECT change_seq FROM user_links WHERE id = :linkId", nativeQuery = true)
+    Long findLinkSeq(@Param("linkId") Long linkId);
+
+    // Último seq eliminado por la compactación: pedir cambios desde antes obliga a recargar todo
+    @Query(value = "SELECT journal_floor_seq FROM user_links WHERE id = :linkId", nativeQuery = true)
+    Long findLinkFloorSeq(@Param("linkId") Long linkId);
+
+    @Query("SELECT c FROM EventChange c WHERE c.linkId = :linkId AND c.seq > :since ORDER BY c.seq ASC")
+    List<EventChange> findChangesSince(@Param("linkId") Long linkId, @Param("since") Long since, Pageable pageable);
+
+    // Entradas con otra posterior del mismo evento: se pueden borrar sin perder información
+    @Query("SELECT c.id FROM EventChange c WHERE EXISTS (SELECT 1 FROM EventChange n " +
+           "WHERE n.linkId = c.linkId AND n.eventId = c.eventId AND n.seq > c.seq)")
+    List<Long> findSupersededIds(Pageable pageable);
+
+    @Query("SELECT c FROM EventChange c WHERE c.op = 'DELETE' AND c.changedAt < :cutoff ORDER BY c.id ASC")
+    List<EventChange> findExpiredTombstones(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Modifying
+    @Query(value = "UPDATE user_links SET journal_floor_seq = GREATEST(journal_floor_seq, :seq) WHERE id = :linkId",
+           nativeQuery = true)
+    int raiseLinkFloor(@Param("linkId") Long linkId, @Param("seq") Long seq);
+
+    @Modifying
+    @Query("DELETE FROM EventChange c WHERE c.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // Entradas de vínculos ya eliminados
+    @Modifying
+    @Query(value = "DELETE FROM event_change_journal WHERE link_id NOT IN (SELECT id FROM user_links) ORDER BY id LIMIT :limit",
+           nativeQuery = true)
+    int purgeOrphanedChunk(@Param("limit") int limit);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -37,6 +38,13 @@ public interface EventExceptionRepository extends JpaRepository<EventException,
     @Query("SELECT e.exceptionDate FROM EventException e WHERE e.event.id = :eventId")
     List<Instant> findExceptionDatesByEventId(@Param("eventId") Long eventId);
     
+    /**
+     * Obtiene las fechas de excepción de varios eventos en una sola consulta
+     * Cada fila contiene [eventId, exceptionDate]
+     */
+    @Query("SELECT e.event.id, e.exceptionDate FROM EventException e WHERE e.event.id IN :eventIds")
+    List<Object[]> findExceptionDatesByEventIdIn(@Param("eventIds") Collection<Long> eventIds);
+    
     /**
      * Elimina todas las excepciones de un evento
      */
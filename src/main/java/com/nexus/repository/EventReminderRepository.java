@@ -0,0 +1,22 @@
+package com.nexus.repository;
+
+import com.nexus.entity.EventReminder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventReminderRepository extends JpaRepository<EventReminder, Long> {
+    
+    /**
+     * Obtiene los recordatorios de varios eventos en una sola consulta
+     * Cada fila contiene [eventId, minutesBefore, label]
+     */
+    @Query("SELECT r.event.id, r.minutesBefore, r.label FROM EventReminder r " +
+           "WHERE r.event.id IN :eventIds ORDER BY r.id ASC")
+    List<Object[]> findReminderRowsByEventIdIn(@Param("eventIds") Collection<Long> eventIds);
+}
@@ -2,6 +2,7 @@ package com.nexus.repository;
 
 import com.nexus.entity.Event;
 import com.nexus.entity.EventStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +27,15 @@ public interface EventRepository extends JpaRepository<Event, Long> {
            "WHERE e.link.id = :linkId AND e.deletedAt IS NULL ORDER BY e.startDateTime ASC")
     List<Event> findByLinkIdAndNotDeleted(@Param("linkId") Long linkId);
     
+    // Eventos por id con vínculo y creador (estado actual de las entradas del diario de cambios)
+    @Query("SELECT e FROM Event e " +
+           "LEFT JOIN FETCH e.link l " +
+           "LEFT JOIN FETCH l.initiatorUser " +
+           "LEFT JOIN FETCH l.partnerUser " +
+           "LEFT JOIN FETCH e.creator " +
+           "WHERE e.id IN :ids AND e.deletedAt IS NULL")
+    List<Event> findWithLinkByIdIn(@Param("ids") Collection<Long> ids);
+    
     // Buscar eventos por usuario (como creador o parte del link)
     @Query("SELECT DISTINCT e FROM Event e " +
            "LEFT JOIN FETCH e.link l " +
@@ -64,8 +75,86 @@ public interface EventRepository extends JpaRepository<Event, Long> {
            "(e.startDateTime <= :startDate AND e.endDateTime >= :endDate)) " +
            "ORDER BY e.startDateTime ASC")
     List<Event> findByLinkIdAndDateRange(@Param("linkId") Long linkId, 
-                                        @Param("startDate") LocalDateTime startDate,
-                                        @Param("endDate") LocalDateTime endDate);
+                                        @Param("startDate") Instant startDate,
+                                        @Param("endDate") Instant endDate);
+    
+    // Primera página (keyset) de eventos de un link en [from, to); las series recurrentes
+    // que empezaron antes de la ventana se incluyen para que el cliente las expanda
+    @Query("SELECT e FROM Event e " +
+           "LEFT JOIN FETCH e.link l " +
+           "LEFT JOIN FETCH l.initiatorUser " +
+           "LEFT JOIN FETCH l.partnerUser " +
+           "LEFT JOIN FETCH e.creator " +
+           "WHERE e.link.id = :linkId AND e.deletedAt IS NULL AND " +
+           "e.startDateTime < :to AND (e.endDateTime > :from OR e.isRecurring = true) " +
+           "ORDER BY e.startDateTime ASC, e.id ASC")
+    List<Event> findPageByLinkIdAndDateRange(@Param("linkId") Long linkId,
+                                             @Param("from") Instant from,
+                                             @Param("to") Instant to,
+                                             Pageable pageable);
+    
+    // Páginas siguientes: continúa después de la clave (startDateTime, id) del cursor
+    @Query("SELECT e FROM Event e " +
+           "LEFT JOIN FETCH e.link l " +
+           "LEFT JOIN FETCH l.initiatorUser " +
+           "LEFT JOIN FETCH l.partnerUser " +
+           "LEFT JOIN FETCH e.creator " +
+           "WHERE e.link.id = :linkId AND e.deletedAt IS NULL AND " +
+           "e.startDateTime < :to AND (e.endDateTime > :from OR e.isRecurring = true) AND " +
+           "(e.startDateTime > :afterStart OR (e.startDateTime = :afterStart AND e.id > :afterId)) " +
+           "ORDER BY e.startDateTime ASC, e.id ASC")
+    List<Event> findPageByLinkIdAndDateRangeAfter(@Param("linkId") Long linkId,
+                                                  @Param("from") Instant from,
+                                                  @Param("to") Instant to,
+                                                  @Param("afterStart") Instant afterStart,
+                                                  @Param("afterId") Long afterId,
+                                                  Pageable pageable);
+    
+    // Primera página (keyset) de eventos pendientes de aprobación, más recientes primero
+    @Query("SELECT e FROM Event e " +
+           "LEFT JOIN FETCH e.link l " +
+           "LEFT JOIN FETCH l.initiatorUser " +
+           "LEFT JOIN FETCH l.partnerUser " +
+           "LEFT JOIN FETCH e.creator " +
+           "WHERE e.deletedAt IS NULL AND " +
+           "e.status = 'PENDING' AND " +
+           "e.partnerApproved = false AND " +
+           "e.link.id = :linkId AND e.creator.id != :userId " +
+           "ORDER BY e.createdAt DESC, e.id DESC")
+    List<Event> findPendingApprovalPageByLinkId(@Param("linkId") Long linkId,
+                                                @Param("userId") Long userId,
+                                                Pageable pageable);
+    
+    // Páginas siguientes: continúa antes de la clave (createdAt, id) del cursor
+    @Query("SELECT e FROM Event e " +
+           "LEFT JOIN FETCH e.link l " +
+           "LEFT JOIN FETCH l.initiatorUser " +
+           "LEFT JOIN FETCH l.partnerUser " +
+           "LEFT JOIN FETCH e.creator " +
+           "WHERE e.deletedAt IS NULL AND " +
+           "e.status = 'PENDING' AND " +
+           "e.partnerApproved = false AND " +
+           "e.link.id = :linkId AND e.creator.id != :userId AND " +
+           "(e.createdAt < :beforeCreatedAt OR (e.createdAt = :beforeCreatedAt AND e.id < :beforeId)) " +
+           "ORDER BY e.createdAt DESC, e.id DESC")
+    List<Event> findPendingApprovalPageByLinkIdBefore(@Param("linkId") Long linkId,
+                                                      @Param("userId") Long userId,
+                                                      @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                                      @Param("beforeId") Long beforeId,
+                                                      Pageable pageable);
+    
+    // Buscar eventos y series recurrentes que pueden tener ocurrencias en [from, to) para un link
+    @Query("SELECT e FROM Event e " +
+           "LEFT JOIN FETCH e.link l " +
+           "LEFT JOIN FETCH l.initiatorUser " +
+           "LEFT JOIN FETCH l.partnerUser " +
+           "LEFT JOIN FETCH e.creator " +
+           "WHERE e.link.id = :linkId AND e.deletedAt IS NULL AND " +
+           "e.startDateTime < :to AND (e.endDateTime > :from OR e.isRecurring = true) " +
+           "ORDER BY e.startDateTime ASC")
+    List<Event> findOccurrenceCandidatesByLinkId(@Param("linkId") Long linkId,
+                                                 @Param("from") Instant from,
+                                                 @Param("to") Instant to);
     
     // Buscar eventos por estado
     @Query("SELECT e FROM Event e " +
@@ -95,6 +184,15 @@ public interface EventRepository extends JpaRepository<Event, Long> {
            "(e.link.partnerUser.id = :userId AND e.creator.id != :userId))")
     long countPendingApprovalByUserId(@Param("userId") Long userId);
     
+    // Pendientes de aprobación agrupados por el miembro del vínculo que debe aprobar
+    // (mismo criterio que countPendingApprovalByUserId); usado por el reconciliador
+    @Query(value = "SELECT CASE WHEN e.creator_user_id = l.initiator_user_id " +
+                   "THEN l.partner_user_id ELSE l.initiator_user_id END AS approver_id, COUNT(*) " +
+                   "FROM events e JOIN user_links l ON l.id = e.link_id " +
+                   "WHERE e.status = 'PENDING' AND e.partner_approved = 0 AND e.deleted_at IS NULL " +
+                   "GROUP BY approver_id", nativeQuery = true)
+    List<Object[]> countPendingApprovalsGroupedByUser();
+    
     // Buscar eventos recurrentes activos
     @Query("SELECT e FROM Event e WHERE e.link.id = :linkId AND e.isRecurring = true AND " +
            "e.status = 'CONFIRMED' AND e.deletedAt IS NULL")
@@ -112,6 +210,22 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     List<Event> findUpcomingEventsForReminders(@Param("now") LocalDateTime now, 
                                               @Param("futureTime") LocalDateTime futureTime);
     
+    // Eventos confirmados con recordatorios que pueden disparar dentro de la ventana
+    // Las series no tienen fecha de fin, así que se devuelven las que RecurrenceService
+    // sabe expandir; se omiten los vínculos sin ningún token push (nadie recibiría nada)
+    @Query("SELECT DISTINCT e FROM Event e JOIN FETCH e.reminders r " +
+           "JOIN FETCH e.link l JOIN FETCH l.initiatorUser iu JOIN FETCH l.partnerUser pu " +
+           "WHERE e.status = 'CONFIRMED' AND e.deletedAt IS NULL AND e.startDateTime < :to AND " +
+           "(iu.fcmToken IS NOT NULL OR pu.fcmToken IS NOT NULL) AND " +
+           "(e.startDateTime >= :from OR " +
+           "(e.isRecurring = true AND UPPER(TRIM(e.recurrencePattern)) IN ('DAILY', 'WEEKLY', 'MONTHLY')))")
+    List<Event> findReminderCandidates(@Param("from") Instant from, @Param("to") Instant to);
+    
+    @Query("SELECT DISTINCT e FROM Event e JOIN FETCH e.reminders r " +
+           "JOIN FETCH e.link l JOIN FETCH l.initiatorUser JOIN FETCH l.partnerUser " +
+           "WHERE e.id = :eventId AND e.status = 'CONFIRMED' AND e.deletedAt IS NULL")
+    Optional<Event> findReminderCandidateById(@Param("eventId") Long eventId);
+    
     // Buscar eventos por creador en un rango de fechas (para detectar disponibilidad)
     @Query("SELECT e FROM Event e WHERE e.creator.id = :userId AND e.deletedAt IS NULL AND " +
            "e.status != 'CANCELLED' AND " +
@@ -121,4 +235,29 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     List<Event> findByCreatorIdAndStartDateTimeBetween(@Param("userId") Long userId,
                                                          @Param("startDate") Instant startDate,
                                                          @Param("endDate") Instant endDate);
-}
\ No newline at end of file
+    
+    // Buscar eventos y series recurrentes del creador que pueden ocupar tiempo en [from, to)
+    @Query("SELECT e FROM Event e WHERE e.creator.id = :userId AND e.deletedAt IS NULL AND " +
+           "e.status != 'CANCELLED' AND e.startDateTime < :to AND " +
+           "(e.endDateTime > :from OR e.isRecurring = true)")
+    List<Event> findBusyCandidatesByCreatorId(@Param("userId") Long userId,
+                                              @Param("from") Instant from,
+                                              @Param("to") Instant to);
+    
+    // Igual que la anterior pero para varios creadores en una sola consulta
+    @Query("SELECT e FROM Event e WHERE e.creator.id IN :userIds AND e.deletedAt IS NULL AND " +
+           "e.status != 'CANCELLED' AND e.startDateTime < :to AND " +
+           "(e.endDateTime > :from OR e.isRecurring = true)")
+    List<Event> findBusyCandidatesByCreatorIdIn(@Param("userIds") Collection<Long> userIds,
+                                                @Param("from") Instant from,
+                                                @Param("to") Instant to);
+    
+    // Creadores de los eventos de los vínculos de un usuario (borrados en cascada con la cuenta)
+    @Query("SELECT DISTINCT e.creator.id FROM Event e " +
+           "WHERE e.link.initiatorUser.id = :userId OR e.link.partnerUser.id = :userId")
+    List<Long> findCreatorIdsByLinkMember(@Param("userId") Long userId);
+    
+    // Eventos de los vínculos de un usuario, para cancelar sus recordatorios antes del borrado en cascada
+    @Query("SELECT e.id FROM Event e WHERE e.link.initiatorUser.id = :userId OR e.link.partnerUser.id = :userId")
+    List<Long> findIdsByLinkMember(@Param("userId") Long userId);
+}
@@ -1,10 +1,15 @@
 package com.nexus.repository;
 
 import com.nexus.entity.ExternalCalendar;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,12 +21,37 @@ public interface ExternalCalendarRepository extends JpaRepository<ExternalCalend
     @Query("SELECT c FROM ExternalCalendar c WHERE c.userId = :userId AND c.isActive = true AND c.deletedAt IS NULL")
     List<ExternalCalendar> findByUserIdAndIsActiveTrue(Long userId);
     
+    @Query("SELECT c FROM ExternalCalendar c WHERE c.userId IN :userIds AND c.isActive = true AND c.deletedAt IS NULL")
+    List<ExternalCalendar> findByUserIdInAndIsActiveTrue(Collection<Long> userIds);
+    
     @Query("SELECT c FROM ExternalCalendar c WHERE c.userId = :userId AND c.syncEnabled = true AND c.deletedAt IS NULL")
     List<ExternalCalendar> findByUserIdAndSyncEnabledTrue(Long userId);
     
     @Query("SELECT c FROM ExternalCalendar c WHERE c.userId = :userId AND c.deviceCalendarId = :deviceCalendarId AND c.deletedAt IS NULL")
     Optional<ExternalCalendar> findByUserIdAndDeviceCalendarId(Long userId, String deviceCalendarId);
     
+    // Bloquea la fila del calendario para serializar las sincronizaciones delta
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ExternalCalendar c WHERE c.id = :id AND c.deletedAt IS NULL")
+    Optional<ExternalCalendar> findByIdForUpdate(Long id);
+    
+    // Bloquea varias filas en orden de id: serializa sincronizaciones del mismo calendario sin interbloqueos
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ExternalCalendar c WHERE c.id IN :calendarIds ORDER BY c.id")
+    List<ExternalCalendar> lockByIdIn(Collection<Long> calendarIds);
+    
+    @Query("SELECT c.id, c.syncCursor FROM ExternalCalendar c WHERE c.id IN :calendarIds")
+    List<Object[]> findSyncCursorsByIdIn(Collection<Long> calendarIds);
+    
+    // Avance atómico del cursor para los calendarios cuyos eventos cambiaron
+    @Modifying
+    @Query("UPDATE ExternalCalendar c SET c.syncCursor = c.syncCursor + 1, c.lastSync = :syncedAt WHERE c.id IN :calendarIds")
+    int advanceSyncCursor(Collection<Long> calendarIds, Instant syncedAt);
+    
+    @Modifying
+    @Query("UPDATE ExternalCalendar c SET c.lastSync = :syncedAt WHERE c.id IN :calendarIds")
+    int touchLastSync(Collection<Long> calendarIds, Instant syncedAt);
+    
     @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END FROM ExternalCalendar c WHERE c.userId = :userId AND c.deviceCalendarId = :deviceCalendarId AND c.deletedAt IS NULL")
     boolean existsByUserIdAndDeviceCalendarId(Long userId, String deviceCalendarId);
 }
@@ -0,0 +1,131 @@
+package com.nexus.repository;
+
+import com.nexus.entity.ExternalEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Escrituras masivas sobre calendar_events con JDBC batch
+ * Se apoya en la clave única (calendar_id, device_event_id): una fila existente
+ * se actualiza en lugar de insertarse, y si estaba eliminada se reactiva.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class ExternalEventBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO calendar_events (calendar_id, device_event_id, title, starts_at_utc, ends_at_utc, " +
+        "start_tzid, end_tzid, all_day, rrule, rrule_dtstart_utc, rrule_until_utc, rrule_count, " +
+        "location, description, is_external, visibility, status, last_device_update, sync_hash, " +
+        "content_hash, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1, 'DEFAULT', 'CONFIRMED', ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE " +
+        "title = VALUES(title), " +
+        "starts_at_utc = VALUES(starts_at_utc), " +
+        "ends_at_utc = VALUES(ends_at_utc), " +
+        "start_tzid = VALUES(start_tzid), " +
+        "end_tzid = VALUES(end_tzid), " +
+        "all_day = VALUES(all_day), " +
+        "rrule = VALUES(rrule), " +
+        "rrule_dtstart_utc = VALUES(rrule_dtstart_utc), " +
+        "rrule_until_utc = VALUES(rrule_until_utc), " +
+        "rrule_count = VALUES(rrule_count), " +
+        "location = VALUES(location), " +
+        "description = VALUES(description), " +
+        "is_external = 1, " +
+        "last_device_update = VALUES(last_device_update), " +
+        "sync_hash = VALUES(sync_hash), " +
+        "content_hash = VALUES(content_hash), " +
+        "updated_at = VALUES(updated_at), " +
+        "deleted_at = NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserta o actualiza los eventos en lotes de BATCH_SIZE sentencias
+     * Usa la conexión de la transacción activa, así que participa del mismo commit.
+     * Si un lote falla se repite fila a fila (el upsert es idempotente) para
+     * aislar las filas con datos inválidos; en MySQL una sentencia fallida no
+     * revierte la transacción. Los errores transitorios (interbloqueos) sí la
+     * revierten y se propagan.
+     *
+     * @return eventos que no se pudieron escribir
+     */
+    public List<ExternalEvent> upsert(List<ExternalEvent> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        // Mismo criterio que hibernate.jdbc.time_zone=UTC
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        Instant now = Instant.now();
+
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, events, BATCH_SIZE, (ps, event) -> bind(ps, event, now, utc));
+            return List.of();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Error en el upsert por lotes de {} eventos, reintentando fila a fila: {}", events.size(), e.getMessage());
+        }
+
+        List<ExternalEvent> failed = new ArrayList<>();
+        for (ExternalEvent event : events) {
+            try {
+                jdbcTemplate.update(UPSERT_SQL, ps -> bind(ps, event, now, utc));
+            } catch (DataIntegrityViolationException e) {
+                log.error("Error sincronizando evento {} del calendario {}: {}",
+                    event.getDeviceEventId(), event.getExternalCalendarId(), e.getMessage());
+                failed.add(event);
+            }
+        }
+        return failed;
+    }
+
+    private static void bind(PreparedStatement ps, ExternalEvent event, Instant now, Calendar utc) throws SQLException {
+        ps.setLong(1, event.getExternalCalendarId());
+        ps.setString(2, event.getDeviceEventId());
+        ps.setString(3, event.getTitle());
+        setInstant(ps, 4, event.getStartDatetime(), utc);
+        setInstant(ps, 5, event.getEndDatetime(), utc);
+        ps.setString(6, event.getStartTimezone());
+        ps.setString(7, event.getEndTimezone());
+        ps.setBoolean(8, Boolean.TRUE.equals(event.getIsAllDay()));
+        ps.setString(9, event.getRecurrenceRule());
+        setInstant(ps, 10, event.getRruleDtstartUtc(), utc);
+        setInstant(ps, 11, event.getRruleUntilUtc(), utc);
+        if (event.getRruleCount() != null) {
+            ps.setInt(12, event.getRruleCount());
+        } else {
+            ps.setNull(12, Types.INTEGER);
+        }
+        ps.setString(13, event.getLocation());
+        ps.setString(14, event.getDescription());
+        setInstant(ps, 15, event.getLastDeviceUpdate(), utc);
+        ps.setString(16, event.getSyncHash());
+        ps.setString(17, event.getContentHash());
+        setInstant(ps, 18, now, utc);
+        setInstant(ps, 19, now, utc);
+    }
+
+    private static void setInstant(PreparedStatement ps, int index, Instant value, Calendar utc) throws SQLException {
+        if (value != null) {
+            ps.setTimestamp(index, Timestamp.from(value), utc);
+        } else {
+            ps.setNull(index, Types.TIMESTAMP);
+        }
+    }
+}
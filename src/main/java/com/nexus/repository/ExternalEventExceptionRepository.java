@@ -0,0 +1,17 @@
+package com.nexus.repository;
+
+import com.nexus.entity.ExternalEventException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExternalEventExceptionRepository extends JpaRepository<ExternalEventException, Long> {
+    
+    @Query("SELECT x FROM ExternalEventException x WHERE x.externalEventId IN :eventIds")
+    List<ExternalEventException> findByExternalEventIdIn(@Param("eventIds") Collection<Long> eventIds);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,8 +27,18 @@ public interface ExternalEventRepository extends JpaRepository<ExternalEvent, Lo
         String deviceEventId
     );
     
+    // Filas existentes de un lote de sincronización (se consulta en bloques)
+    @Query("SELECT e FROM ExternalEvent e WHERE e.externalCalendarId = :calendarId AND e.deviceEventId IN :deviceEventIds AND e.deletedAt IS NULL")
+    List<ExternalEvent> findByExternalCalendarIdAndDeviceEventIdIn(
+        Long calendarId,
+        Collection<String> deviceEventIds
+    );
+    
+    // Incluye las series RRULE que empezaron antes de la ventana y siguen vigentes
     @Query("SELECT e FROM ExternalEvent e WHERE e.externalCalendarId IN :calendarIds " +
-           "AND e.startDatetime <= :endDate AND e.endDatetime >= :startDate " +
+           "AND e.startDatetime <= :endDate " +
+           "AND (e.endDatetime >= :startDate OR (e.recurrenceRule IS NOT NULL " +
+           "AND (e.rruleUntilUtc IS NULL OR e.rruleUntilUtc >= :startDate))) " +
            "AND e.deletedAt IS NULL AND e.status != 'CANCELLED' " +
            "ORDER BY e.startDatetime ASC")
     List<ExternalEvent> findEventsByCalendarsAndDateRange(
@@ -40,6 +51,36 @@ public interface ExternalEventRepository extends JpaRepository<ExternalEvent, Lo
     @Query("UPDATE ExternalEvent e SET e.deletedAt = CURRENT_TIMESTAMP WHERE e.externalCalendarId = :calendarId")
     void softDeleteByExternalCalendarId(Long calendarId);
     
+    // Mantenimiento: un bloque de eventos de calendarios desvinculados o eliminados
+    @Modifying
+    @Query(value = "UPDATE calendar_events SET deleted_at = :deletedAt " +
+                   "WHERE deleted_at IS NULL AND calendar_id IN " +
+                   "(SELECT c.id FROM calendars c WHERE c.is_active = 0 OR c.deleted_at IS NOT NULL) " +
+                   "ORDER BY id LIMIT :limit", nativeQuery = true)
+    int softDeleteOrphanedChunk(Instant deletedAt, int limit);
+    
+    // Mantenimiento: borrado físico de un bloque de eventos eliminados antes de cutoff
+    @Modifying
+    @Query(value = "DELETE FROM calendar_events WHERE deleted_at < :cutoff ORDER BY id LIMIT :limit", nativeQuery = true)
+    int purgeDeletedChunk(Instant cutoff, int limit);
+    
+    // Pares [id, deviceEventId] vigentes de un calendario, para el diff de snapshot completo
+    @Query("SELECT e.id, e.deviceEventId FROM ExternalEvent e WHERE e.externalCalendarId = :calendarId AND e.deletedAt IS NULL")
+    List<Object[]> findLiveDeviceEventIdsByCalendarId(Long calendarId);
+    
+    // Filas [deviceEventId, syncHash, startDatetime] vigentes, para construir el árbol de hashes
+    @Query("SELECT e.deviceEventId, e.syncHash, e.startDatetime FROM ExternalEvent e " +
+           "WHERE e.externalCalendarId = :calendarId AND e.deletedAt IS NULL AND e.deviceEventId IS NOT NULL")
+    List<Object[]> findMerkleLeavesByCalendarId(Long calendarId);
+    
+    @Modifying
+    @Query("UPDATE ExternalEvent e SET e.deletedAt = CURRENT_TIMESTAMP WHERE e.id IN :ids AND e.deletedAt IS NULL")
+    int softDeleteByIdIn(Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE ExternalEvent e SET e.deletedAt = CURRENT_TIMESTAMP WHERE e.externalCalendarId = :calendarId AND e.deviceEventId IN :deviceEventIds AND e.deletedAt IS NULL")
+    int softDeleteByExternalCalendarIdAndDeviceEventIdIn(Long calendarId, Collection<String> deviceEventIds);
+    
     @Modifying
     @Query("UPDATE ExternalEvent e SET e.deletedAt = CURRENT_TIMESTAMP WHERE e.externalCalendarId = :calendarId AND e.deviceEventId = :deviceEventId")
     void softDeleteByExternalCalendarIdAndDeviceEventId(Long calendarId, String deviceEventId);
@@ -0,0 +1,31 @@
+package com.nexus.repository;
+
+import com.nexus.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends OutboxRepository<NotificationOutbox> {
+
+    // Bloque de pendientes vencidos; SKIP LOCKED permite varios relays sin esperas
+    @Override
+    @Query(value = "SELECT * FROM notification_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> lockDueBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Override
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = 'SENT', o.sentAt = :sentAt, o.lastError = NULL WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Override
+    @Modifying
+    @Query(value = "DELETE FROM notification_outbox WHERE status = 'SENT' AND sent_at < :cutoff ORDER BY id LIMIT :limit", nativeQuery = true)
+    int purgeSentChunk(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
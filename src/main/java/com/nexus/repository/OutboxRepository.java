@@ -0,0 +1,23 @@
+package com.nexus.repository;
+
+import com.nexus.entity.OutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Consultas comunes a las colas persistentes; cada tabla declara su SQL
+ */
+@NoRepositoryBean
+public interface OutboxRepository<T extends OutboxEntry> extends JpaRepository<T, Long> {
+
+    // Bloque de pendientes vencidos, bloqueado con FOR UPDATE SKIP LOCKED
+    List<T> lockDueBatch(Instant now, int limit);
+
+    int markSent(Collection<Long> ids, Instant sentAt);
+
+    int purgeSentChunk(Instant cutoff, int limit);
+}
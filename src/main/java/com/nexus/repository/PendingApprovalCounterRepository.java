@@ -0,0 +1,35 @@
+package com.nexus.repository;
+
+import com.nexus.entity.PendingApprovalCounter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PendingApprovalCounterRepository extends JpaRepository<PendingApprovalCounter, Long> {
+
+    // Solo actualiza filas existentes: la fila se crea con el recuento completo en la primera lectura
+    @Modifying
+    @Query(value = "UPDATE user_pending_counters SET pending_count = GREATEST(CAST(pending_count AS SIGNED) + :delta, 0), " +
+                   "updated_at = NOW(3) WHERE user_id = :userId", nativeQuery = true)
+    int addDelta(@Param("userId") Long userId, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "INSERT INTO user_pending_counters (user_id, pending_count, updated_at) VALUES (:userId, :count, NOW(3)) " +
+                   "ON DUPLICATE KEY UPDATE pending_count = VALUES(pending_count), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int upsertCount(@Param("userId") Long userId, @Param("count") long count);
+
+    // Bloquea la fila: las transiciones concurrentes (addDelta) esperan al recuento del reconciliador
+    @Query(value = "SELECT pending_count FROM user_pending_counters WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    Long lockCount(@Param("userId") Long userId);
+
+    // Recorrido por bloques para el reconciliador
+    @Query("SELECT c FROM PendingApprovalCounter c WHERE c.userId > :afterUserId ORDER BY c.userId ASC")
+    List<PendingApprovalCounter> findChunkAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+}
@@ -0,0 +1,285 @@
+package com.nexus.service;
+
+import com.nexus.util.GenerationGuardedCache;
+import com.nexus.util.IntervalSet;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Índice en memoria de tiempo ocupado por usuario
+ *
+ * Cada usuario tiene dos bitmaps long[] que cubren una ventana móvil de
+ * WINDOW_DAYS días desde el inicio del día actual (UTC), con un bit por
+ * bloque de SLOT_MINUTES minutos: touched marca los bloques que algún evento
+ * toca y covered los que algún evento cubre por completo. Los bloques libres
+ * y los cubiertos se resuelven con los bitmaps; los que solo están tocados
+ * (bordes de cada evento) se comparan con los intervalos exactos del usuario,
+ * así que el resultado coincide con el cálculo exacto de IntervalSet.
+ *
+ * Los bitmaps son inmutables: las actualizaciones crean una copia para que
+ * los lectores nunca vean un estado parcial.
+ */
+@Component
+public class AvailabilityIndex {
+
+    public static final int SLOT_MINUTES = 5;
+    public static final int WINDOW_DAYS = 90;
+
+    private static final long SLOT_MILLIS = SLOT_MINUTES * 60_000L;
+    private static final int SLOTS = (int) (WINDOW_DAYS * 24L * 60L / SLOT_MINUTES);
+    private static final int WORDS = (SLOTS + 63) >>> 6;
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private final GenerationGuardedCache<Long, UserBitmap> bitmaps = new GenerationGuardedCache<>(MAX_CACHED_USERS);
+
+    /**
+     * Carga los intervalos ocupados normalizados ({s0, e0, s1, e1, ...} en ms epoch)
+     * de un usuario dentro de [windowStart, windowEnd)
+     */
+    @FunctionalInterface
+    public interface BusyLoader {
+        long[] load(Long userId, Instant windowStart, Instant windowEnd);
+    }
+
+    /**
+     * Huecos libres comunes a todos los usuarios dentro de [from, to)
+     * Devuelve null si el rango no cabe en la ventana del índice, para que el
+     * llamador use el cálculo exacto.
+     */
+    public long[] findCommonFree(Collection<Long> userIds, long from, long to, BusyLoader loader) {
+        long windowStart = currentWindowStart();
+        long windowEnd = windowStart + SLOTS * SLOT_MILLIS;
+        if (from < windowStart || to > windowEnd || from >= to) {
+            return null;
+        }
+
+        // OR de los bitmaps ocupados == AND de los bitmaps libres
+        long[] touched = new long[WORDS];
+        long[] covered = new long[WORDS];
+        UserBitmap[] users = new UserBitmap[userIds.size()];
+        int userCount = 0;
+        for (Long userId : userIds) {
+            UserBitmap bitmap = bitmapFor(userId, windowStart, loader);
+            users[userCount++] = bitmap;
+            for (int i = 0; i < WORDS; i++) {
+                touched[i] |= bitmap.touched[i];
+                covered[i] |= bitmap.covered[i];
+            }
+        }
+
+        int firstSlot = (int) ((from - windowStart) / SLOT_MILLIS);
+        int lastSlot = (int) ((to - windowStart + SLOT_MILLIS - 1) / SLOT_MILLIS);
+
+        IntervalSet.Builder free = new IntervalSet.Builder(16);
+        int slot = firstSlot;
+        while (slot < lastSlot) {
+            int busyStart = nextSetBit(touched, slot, lastSlot);
+            if (busyStart > slot) {
+                free.add(Math.max(from, windowStart + slot * SLOT_MILLIS),
+                    Math.min(to, windowStart + busyStart * SLOT_MILLIS));
+            }
+            if (busyStart >= lastSlot) {
+                break;
+            }
+            int busyEnd = nextClearBit(touched, busyStart, lastSlot);
+            // Bloques tocados que ningún evento cubre entero: pueden tener tiempo libre
+            int partial = nextClearBit(covered, busyStart, busyEnd);
+            while (partial < busyEnd) {
+                addExactFree(users, userCount,
+                    Math.max(from, windowStart + partial * SLOT_MILLIS),
+                    Math.min(to, windowStart + (partial + 1) * SLOT_MILLIS),
+                    free);
+                partial = nextClearBit(covered, partial + 1, busyEnd);
+            }
+            slot = busyEnd;
+        }
+        // La unión fusiona los trozos contiguos de bloques vecinos
+        return free.union();
+    }
+
+    /**
+     * Marca [start, end) como ocupado para un usuario ya indexado
+     * Solo sirve para cambios aditivos (un evento nuevo); si el usuario no
+     * está en memoria no hay nada que actualizar, se cargará completo después.
+     * También avanza la generación para descartar cargas que empezaron antes.
+     */
+    public void markBusy(Long userId, Instant start, Instant end) {
+        bitmaps.update(userId, bitmap -> start.isBefore(end)
+            ? bitmap.withBusy(start.toEpochMilli(), end.toEpochMilli())
+            : bitmap);
+    }
+
+    /**
+     * Descarta el bitmap de un usuario (ediciones, borrados, resincronización)
+     */
+    public void invalidate(Long userId) {
+        bitmaps.invalidate(userId);
+    }
+
+    private UserBitmap bitmapFor(Long userId, long windowStart, BusyLoader loader) {
+        UserBitmap cached = bitmaps.getIfPresent(userId);
+        if (cached != null && cached.windowStart == windowStart) {
+            return cached;
+        }
+        // Sin bitmap o de una ventana anterior: se recarga
+        return bitmaps.load(userId, id -> {
+            long[] intervals = loader.load(
+                id,
+                Instant.ofEpochMilli(windowStart),
+                Instant.ofEpochMilli(windowStart + SLOTS * SLOT_MILLIS)
+            );
+            UserBitmap built = new UserBitmap(windowStart, new long[WORDS], new long[WORDS], intervals);
+            for (int i = 0; i < intervals.length; i += 2) {
+                built.setRange(intervals[i], intervals[i + 1]);
+            }
+            return built;
+        });
+    }
+
+    /**
+     * Tiempo libre exacto de un bloque parcialmente ocupado dentro de [start, end)
+     */
+    private static void addExactFree(UserBitmap[] users, int userCount, long start, long end, IntervalSet.Builder free) {
+        if (start >= end) {
+            return;
+        }
+        long[] busy = IntervalSet.EMPTY;
+        for (int i = 0; i < userCount; i++) {
+            busy = IntervalSet.union(busy, slice(users[i].intervals, start, end));
+        }
+        long[] gaps = IntervalSet.complement(busy, start, end);
+        for (int i = 0; i < gaps.length; i += 2) {
+            free.add(gaps[i], gaps[i + 1]);
+        }
+    }
+
+    /**
+     * Parte de un conjunto normalizado que cae en [start, end), recortada a ese rango
+     * Búsqueda binaria del primer intervalo que termina después de start.
+     */
+    private static long[] slice(long[] set, long start, long end) {
+        int low = 0;
+        int high = set.length / 2;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (set[2 * mid + 1] <= start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int first = 2 * low;
+        int last = first;
+        while (last < set.length && set[last] < end) {
+            last += 2;
+        }
+        if (first == last) {
+            return IntervalSet.EMPTY;
+        }
+        long[] out = Arrays.copyOfRange(set, first, last);
+        out[0] = Math.max(out[0], start);
+        out[out.length - 1] = Math.min(out[out.length - 1], end);
+        return out;
+    }
+
+    private static long currentWindowStart() {
+        return LocalDate.now(ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private static int nextSetBit(long[] words, int from, int limit) {
+        if (from >= limit) {
+            return limit;
+        }
+        int index = from >>> 6;
+        long word = words[index] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return Math.min(limit, (index << 6) + Long.numberOfTrailingZeros(word));
+            }
+            if (++index >= words.length || (index << 6) >= limit) {
+                return limit;
+            }
+            word = words[index];
+        }
+    }
+
+    private static int nextClearBit(long[] words, int from, int limit) {
+        if (from >= limit) {
+            return limit;
+        }
+        int index = from >>> 6;
+        long word = ~words[index] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return Math.min(limit, (index << 6) + Long.numberOfTrailingZeros(word));
+            }
+            if (++index >= words.length || (index << 6) >= limit) {
+                return limit;
+            }
+            word = ~words[index];
+        }
+    }
+
+    private static final class UserBitmap {
+
+        private final long windowStart;
+        private final long[] touched;
+        private final long[] covered;
+        // Intervalos ocupados exactos (conjunto normalizado) para resolver los bloques parciales
+        private final long[] intervals;
+
+        private UserBitmap(long windowStart, long[] touched, long[] covered, long[] intervals) {
+            this.windowStart = windowStart;
+            this.touched = touched;
+            this.covered = covered;
+            this.intervals = intervals;
+        }
+
+        private UserBitmap withBusy(long start, long end) {
+            UserBitmap copy = new UserBitmap(windowStart, touched.clone(), covered.clone(),
+                IntervalSet.union(intervals, new long[] {start, end}));
+            copy.setRange(start, end);
+            return copy;
+        }
+
+        // Solo se usa sobre bitmaps que todavía no se publicaron
+        private void setRange(long start, long end) {
+            long windowEnd = windowStart + SLOTS * SLOT_MILLIS;
+            long clampedStart = Math.max(start, windowStart);
+            long clampedEnd = Math.min(end, windowEnd);
+            if (clampedStart >= clampedEnd) {
+                return;
+            }
+            int fromSlot = (int) ((clampedStart - windowStart) / SLOT_MILLIS);
+            int toSlot = (int) ((clampedEnd - windowStart + SLOT_MILLIS - 1) / SLOT_MILLIS);
+            setBits(touched, fromSlot, toSlot);
+
+            int fullFrom = (int) ((clampedStart - windowStart + SLOT_MILLIS - 1) / SLOT_MILLIS);
+            int fullTo = (int) ((clampedEnd - windowStart) / SLOT_MILLIS);
+            if (fullFrom < fullTo) {
+                setBits(covered, fullFrom, fullTo);
+            }
+        }
+
+        private static void setBits(long[] words, int fromSlot, int toSlot) {
+            int fromWord = fromSlot >>> 6;
+            int toWord = (toSlot - 1) >>> 6;
+            long firstMask = -1L << fromSlot;
+            long lastMask = -1L >>> -toSlot;
+            if (fromWord == toWord) {
+                words[fromWord] |= firstMask & lastMask;
+                return;
+            }
+            words[fromWord] |= firstMask;
+            for (int i = fromWord + 1; i < toWord; i++) {
+                words[i] = -1L;
+            }
+            words[toWord] |= lastMask;
+        }
+    }
+}
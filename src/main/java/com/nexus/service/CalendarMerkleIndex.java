@@ -0,0 +1,241 @@
+package com.nexus.service;
+
+import com.nexus.dto.MerkleNodeResponse;
+import com.nexus.repository.ExternalEventRepository;
+import com.nexus.util.GenerationGuardedCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumen jerárquico de hashes por calendario externo para reconciliar
+ * dispositivo y servidor sin subir todos los eventos
+ *
+ * Niveles: raíz → año (yyyy) → mes (yyyy-MM) → día (yyyy-MM-dd, UTC del inicio) → eventos.
+ * La hoja de un evento son los primeros 8 bytes de SHA-256("deviceEventId|syncHash")
+ * y el hash de un bucket es la suma (módulo 2^64) de sus hojas. Al ser aditivo,
+ * un upsert solo toca un bucket por nivel: se resta la hoja vieja y se suma la nueva.
+ *
+ * Los árboles se construyen bajo demanda desde la base de datos y se mantienen
+ * con los cambios confirmados de la sincronización.
+ */
+@Component
+@RequiredArgsConstructor
+public class CalendarMerkleIndex {
+
+    private static final int MAX_CACHED_CALENDARS = 2_000;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    private final ExternalEventRepository externalEventRepository;
+
+    private final GenerationGuardedCache<Long, CalendarTree> trees = new GenerationGuardedCache<>(MAX_CACHED_CALENDARS);
+
+    /**
+     * Estado confirmado de un evento tras un upsert
+     */
+    @lombok.Value
+    public static class Leaf {
+        String syncHash;
+        Instant start;
+    }
+
+    /**
+     * Nodo del árbol para el prefijo dado: "" (raíz), "yyyy", "yyyy-MM" o "yyyy-MM-dd"
+     * En los niveles intermedios devuelve los hijos; en el nivel de día, los eventos.
+     */
+    public MerkleNodeResponse describe(Long calendarId, String prefix) {
+        String key = prefix == null ? "" : prefix.trim();
+        if (!isValidPrefix(key)) {
+            throw new IllegalArgumentException("Prefijo inválido: " + prefix);
+        }
+        CalendarTree tree = treeFor(calendarId);
+        synchronized (tree) {
+            return tree.describe(calendarId, key);
+        }
+    }
+
+    /**
+     * Aplicar cambios ya confirmados; si el árbol no está en memoria se construirá
+     * completo en la próxima consulta
+     */
+    public void apply(Long calendarId, Map<String, Leaf> changes) {
+        trees.update(calendarId, tree -> {
+            synchronized (tree) {
+                changes.forEach(tree::put);
+            }
+            return tree;
+        });
+    }
+
+    /**
+     * Descartar el árbol (eliminaciones, limpieza de calendarios)
+     */
+    public void invalidate(Long calendarId) {
+        trees.invalidate(calendarId);
+    }
+
+    /**
+     * Descartar todos los árboles (mantenimiento masivo sin ids concretos)
+     */
+    public void invalidateAll() {
+        trees.invalidateAll();
+    }
+
+    /**
+     * Hoja de un evento: primeros 8 bytes de SHA-256("deviceEventId|syncHash")
+     */
+    public static long leafHash(String deviceEventId, String syncHash) {
+        MessageDigest md = SHA_256.get();
+        md.update(deviceEventId.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) '|');
+        if (syncHash != null) {
+            md.update(syncHash.getBytes(StandardCharsets.UTF_8));
+        }
+        return ByteBuffer.wrap(md.digest()).getLong();
+    }
+
+    private CalendarTree treeFor(Long calendarId) {
+        return trees.get(calendarId, id -> {
+            CalendarTree built = new CalendarTree();
+            for (Object[] row : externalEventRepository.findMerkleLeavesByCalendarId(id)) {
+                built.put((String) row[0], new Leaf((String) row[1], (Instant) row[2]));
+            }
+            return built;
+        });
+    }
+
+    private static boolean isValidPrefix(String prefix) {
+        return prefix.isEmpty()
+            || prefix.matches("\\d{4}")
+            || prefix.matches("\\d{4}-\\d{2}")
+            || prefix.matches("\\d{4}-\\d{2}-\\d{2}");
+    }
+
+    private static String toHex(long hash) {
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * Árbol de un calendario; se accede sincronizado sobre la propia instancia
+     */
+    private static final class CalendarTree {
+
+        private final Bucket root = new Bucket();
+        private final TreeMap<String, Bucket> years = new TreeMap<>();
+        private final TreeMap<String, Bucket> months = new TreeMap<>();
+        private final TreeMap<String, Bucket> days = new TreeMap<>();
+        private final Map<String, TreeMap<String, String>> eventsByDay = new HashMap<>();
+        private final Map<String, Leaf> leaves = new HashMap<>();
+
+        /**
+         * Reemplaza la hoja de un evento: resta la anterior (si había) y suma la nueva
+         */
+        private void put(String deviceEventId, Leaf leaf) {
+            Leaf previous = leaves.put(deviceEventId, leaf);
+            if (previous != null) {
+                remove(deviceEventId, previous);
+            }
+            update(deviceEventId, leaf, 1);
+            eventsByDay.computeIfAbsent(dayKey(leaf.getStart()), day -> new TreeMap<>())
+                .put(deviceEventId, leaf.getSyncHash());
+        }
+
+        private void remove(String deviceEventId, Leaf leaf) {
+            update(deviceEventId, leaf, -1);
+            String day = dayKey(leaf.getStart());
+            TreeMap<String, String> events = eventsByDay.get(day);
+            if (events != null) {
+                events.remove(deviceEventId);
+                if (events.isEmpty()) {
+                    eventsByDay.remove(day);
+                }
+            }
+        }
+
+        private void update(String deviceEventId, Leaf leaf, int sign) {
+            long hash = sign * leafHash(deviceEventId, leaf.getSyncHash());
+            String day = dayKey(leaf.getStart());
+            root.add(hash, sign);
+            adjust(years, day.substring(0, 4), hash, sign);
+            adjust(months, day.substring(0, 7), hash, sign);
+            adjust(days, day, hash, sign);
+        }
+
+        private static void adjust(TreeMap<String, Bucket> level, String key, long hash, int sign) {
+            Bucket bucket = level.computeIfAbsent(key, k -> new Bucket());
+            bucket.add(hash, sign);
+            if (bucket.count <= 0) {
+                level.remove(key);
+            }
+        }
+
+        private MerkleNodeResponse describe(Long calendarId, String prefix) {
+            Bucket node;
+            List<MerkleNodeResponse.Child> children = new ArrayList<>();
+            List<MerkleNodeResponse.EventLeaf> events = new ArrayList<>();
+
+            if (prefix.isEmpty()) {
+                node = root;
+                years.forEach((key, bucket) -> children.add(bucket.toChild(key)));
+            } else if (prefix.length() == 4) {
+                node = years.get(prefix);
+                months.subMap(prefix + "-", prefix + "-\uffff")
+                    .forEach((key, bucket) -> children.add(bucket.toChild(key)));
+            } else if (prefix.length() == 7) {
+                node = months.get(prefix);
+                days.subMap(prefix + "-", prefix + "-\uffff")
+                    .forEach((key, bucket) -> children.add(bucket.toChild(key)));
+            } else {
+                node = days.get(prefix);
+                eventsByDay.getOrDefault(prefix, new TreeMap<>())
+                    .forEach((id, syncHash) -> events.add(new MerkleNodeResponse.EventLeaf(id, syncHash)));
+            }
+
+            return MerkleNodeResponse.builder()
+                .calendarId(calendarId)
+                .prefix(prefix)
+                .hash(node != null ? toHex(node.hash) : toHex(0L))
+                .count(node != null ? node.count : 0)
+                .children(children)
+                .events(events)
+                .build();
+        }
+
+        private static String dayKey(Instant start) {
+            return LocalDate.ofInstant(start, ZoneOffset.UTC).toString();
+        }
+    }
+
+    private static final class Bucket {
+        private long hash;
+        private int count;
+
+        private void add(long leafHash, int sign) {
+            hash += leafHash;
+            count += sign;
+        }
+
+        private MerkleNodeResponse.Child toChild(String key) {
+            return new MerkleNodeResponse.Child(key, toHex(hash), count);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.nexus.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexus.entity.EmailOutbox;
+import com.nexus.entity.EmailOutbox.EmailStatus;
+import com.nexus.entity.EmailOutbox.EmailType;
+import com.nexus.repository.EmailOutboxRepository;
+import com.nexus.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola persistente de emails
+ *
+ * UserService encola el email en la misma transacción que el token que
+ * contiene. Un grupo fijo de sender-threads hilos reclama bloques de
+ * pendientes con FOR UPDATE SKIP LOCKED y envía cada bloque por una sola
+ * conexión SMTP. Los fallidos se reintentan con espera exponencial y, tras
+ * max-attempts, quedan en DEAD. Una ráfaga de registros ya no crea un hilo
+ * ni una sesión SMTP por email.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.mail.sender-threads:2}")
+    private int senderThreads;
+
+    // Emails enviados por conexión SMTP
+    @Value("${app.mail.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.mail.max-attempts:6}")
+    private int maxAttempts;
+
+    // Tiempo que un bloque reclamado queda reservado si el hilo muere a mitad de envío
+    @Value("${app.mail.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.mail.sent-retention-days:7}")
+    private long sentRetentionDays;
+
+    private ExecutorService senders;
+    private final AtomicInteger activeDrains = new AtomicInteger();
+
+    @PostConstruct
+    void startSenders() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "email-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopSenders() {
+        senders.shutdownNow();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueVerification(String toEmail, String verificationCode) {
+        enqueue(EmailType.VERIFICATION, toEmail, verificationCode);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueuePasswordReset(String toEmail, String resetCode) {
+        enqueue(EmailType.PASSWORD_RESET, toEmail, resetCode);
+    }
+
+    /**
+     * Sondeo de respaldo: recoge reintentos vencidos y lo que quedó de otra instancia
+     */
+    @Scheduled(fixedDelayString = "${app.mail.poll-millis:5000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    @Scheduled(cron = "${app.mail.purge-cron:0 45 3 * * *}")
+    public void purgeSent() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(sentRetentionDays));
+        int purged = OutboxSupport.purgeSent(transactionTemplate, emailOutboxRepository, cutoff);
+        log.info("Cola de emails: {} filas enviadas purgadas, {} pendientes, {} descartadas",
+            purged, emailOutboxRepository.countByStatus(EmailStatus.PENDING),
+            emailOutboxRepository.countByStatus(EmailStatus.DEAD));
+    }
+
+    private void enqueue(EmailType type, String toEmail, String code) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(Map.of("code", code));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el email", e);
+        }
+        emailOutboxRepository.save(EmailOutbox.builder()
+            .type(type)
+            .recipient(toEmail)
+            .payload(json)
+            .nextAttemptAt(Instant.now())
+            .build());
+        TransactionHooks.afterCommit(this::requestDrain);
+    }
+
+    /**
+     * Arrancar otro hilo de envío si queda alguno libre; los que ya corren
+     * siguen reclamando bloques hasta vaciar la cola
+     */
+    private void requestDrain() {
+        int active;
+        do {
+            active = activeDrains.get();
+            if (active >= senderThreads) {
+                return;
+            }
+        } while (!activeDrains.compareAndSet(active, active + 1));
+
+        senders.execute(() -> {
+            try {
+                drain();
+            } finally {
+                activeDrains.decrementAndGet();
+            }
+        });
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                List<EmailOutbox> claimed = claimBatch();
+                if (claimed.isEmpty()) {
+                    return;
+                }
+                deliver(claimed);
+                if (claimed.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Error en el envío de emails: {}", e.getMessage());
+        }
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        return OutboxSupport.claimBatch(transactionTemplate, emailOutboxRepository, batchSize, leaseSeconds);
+    }
+
+    private void deliver(List<EmailOutbox> claimed) {
+        List<Long> sent = new ArrayList<>();
+        List<EmailOutbox> failed = new ArrayList<>();
+
+        Map<MimeMessage, EmailOutbox> byMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(claimed.size());
+        for (EmailOutbox entry : claimed) {
+            try {
+                MimeMessage message = buildMessage(entry);
+                byMessage.put(message, entry);
+                messages.add(message);
+            } catch (Exception e) {
+                recordFailure(entry, e);
+                failed.add(entry);
+            }
+        }
+
+        Map<MimeMessage, Exception> errors = emailService.sendBatch(messages);
+        for (MimeMessage message : messages) {
+            EmailOutbox entry = byMessage.get(message);
+            Exception error = errors.get(message);
+            if (error == null) {
+                sent.add(entry.getId());
+            } else {
+                recordFailure(entry, error);
+                failed.add(entry);
+            }
+        }
+
+        OutboxSupport.complete(transactionTemplate, emailOutboxRepository, sent, failed);
+        log.info("Cola de emails: {} enviados, {} con error", sent.size(), failed.size());
+    }
+
+    private MimeMessage buildMessage(EmailOutbox entry) throws JsonProcessingException, MessagingException {
+        Map<String, String> payload = objectMapper.readValue(entry.getPayload(), new TypeReference<Map<String, String>>() {});
+        String code = payload.get("code");
+        switch (entry.getType()) {
+            case VERIFICATION:
+                return emailService.createVerificationMessage(entry.getRecipient(), code);
+            case PASSWORD_RESET:
+                return emailService.createPasswordResetMessage(entry.getRecipient(), code);
+            default:
+                throw new IllegalStateException("Tipo de email no soportado: " + entry.getType());
+        }
+    }
+
+    /**
+     * Reintento con espera exponencial; tras maxAttempts queda en DEAD
+     */
+    private void recordFailure(EmailOutbox entry, Exception e) {
+        if (OutboxSupport.recordFailure(entry, e, maxAttempts)) {
+            log.error("❌ Email {} a {} descartado tras {} intentos: {}",
+                entry.getId(), entry.getRecipient(), entry.getAttempts(), OutboxSupport.errorMessage(e));
+        }
+    }
+}
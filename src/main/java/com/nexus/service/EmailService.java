@@ -1,15 +1,28 @@
 package com.nexus.service;
 
+import com.nexus.util.HtmlTemplate;
+import jakarta.activation.DataSource;
+import jakarta.annotation.PostConstruct;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.util.ByteArrayDataSource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -27,6 +40,36 @@ public class EmailService {
     @Value("${app.logo.url:}")
     private String appLogoUrl;
     
+    private static final int INITIAL_BUFFER_CAPACITY = 8 * 1024;
+    private static final int MAX_BUFFER_CAPACITY = 64 * 1024;
+    
+    // Buffer de render por hilo; los hilos de envío son un grupo fijo
+    private static final ThreadLocal<StringBuilder> RENDER_BUFFER =
+        ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_CAPACITY));
+    
+    // Plantillas compiladas al arrancar, con appName y logo ya fijados
+    private HtmlTemplate verificationTemplate;
+    private HtmlTemplate passwordResetTemplate;
+    
+    // Bytes del logo inline (solo si app.logo.url es "cid:...")
+    private DataSource inlineLogo;
+    
+    @PostConstruct
+    void loadTemplates() {
+        // Bloque de logo: si hay URL configurada, usar imagen; si no, usar emoji de festejo
+        String logoBlock = (appLogoUrl != null && !appLogoUrl.isBlank())
+            ? ("<img class='logo-img' src='" + appLogoUrl + "' alt='" + appName + " logo' />")
+            : "<div class='logo'>&#127881;</div>";
+        Map<String, String> constants = Map.of("appName", appName, "logoBlock", logoBlock);
+        
+        verificationTemplate = loadTemplate("templates/email/verification.html").bind(constants);
+        passwordResetTemplate = loadTemplate("templates/email/password-reset.html").bind(constants);
+        
+        if (appLogoUrl != null && appLogoUrl.startsWith("cid:")) {
+            inlineLogo = loadInlineLogo();
+        }
+    }
+    
     /**
      * Envía un código de verificación de email (RN-02: validez 1 hora)
      * @param toEmail Email del destinatario
@@ -34,39 +77,7 @@ public class EmailService {
      */
     public void sendVerificationEmail(String toEmail, String verificationCode) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject(appName + " - Verifica tu correo electrónico");
-            
-            String htmlContent = buildVerificationEmailHtml(verificationCode);
-            helper.setText(htmlContent, true);
-
-            // Adjuntar el logo inline si se usa un CID (mejor compatibilidad que data URIs)
-            if (appLogoUrl != null && appLogoUrl.startsWith("cid:")) {
-                String cid = appLogoUrl.substring(4);
-                try {
-                    // Intenta primero con PNG (mejor compatibilidad con clientes de email)
-                    ClassPathResource logoRes = new ClassPathResource("static/images/app-logo.png");
-                    if (logoRes.exists()) {
-                        helper.addInline(cid, logoRes, "image/png");
-                    } else {
-                        // Fallback a SVG si no existe PNG
-                        logoRes = new ClassPathResource("static/images/app-logo.svg");
-                        if (logoRes.exists()) {
-                            helper.addInline(cid, logoRes, "image/svg+xml");
-                        } else {
-                            log.warn("Logo inline no encontrado en classpath");
-                        }
-                    }
-                } catch (Exception ex) {
-                    log.warn("No se pudo adjuntar el logo inline: {}", ex.getMessage());
-                }
-            }
-            
-            mailSender.send(message);
+            mailSender.send(createVerificationMessage(toEmail, verificationCode));
             log.info("Email de verificación enviado exitosamente a: {}", toEmail);
             
         } catch (MessagingException e) {
@@ -82,17 +93,7 @@ public class EmailService {
      */
     public void sendPasswordResetEmail(String toEmail, String resetCode) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject(appName + " - Recupera tu contraseña");
-            
-            String htmlContent = buildPasswordResetEmailHtml(resetCode);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
+            mailSender.send(createPasswordResetMessage(toEmail, resetCode));
             log.info("Email de recuperación de contraseña enviado exitosamente a: {}", toEmail);
             
         } catch (MessagingException e) {
@@ -101,145 +102,110 @@ public class EmailService {
         }
     }
     
-    private String buildVerificationEmailHtml(String code) {
-        // Construir bloque de logo: si hay URL configurada, usar imagen; si no, usar emoji de festejo
-        String logoBlock = (appLogoUrl != null && !appLogoUrl.isBlank())
-            ? ("<img class='logo-img' src='" + appLogoUrl + "' alt='" + appName + " logo' />")
-            : "<div class='logo'>&#127881;</div>";
+    /**
+     * Envía varios mensajes por una sola conexión SMTP
+     * JavaMailSenderImpl abre un único Transport para todo el array, así que
+     * el lote cuesta un handshake (y un STARTTLS/AUTH) en lugar de uno por mensaje.
+     *
+     * @return Mensajes que fallaron con su causa; vacío si se enviaron todos
+     */
+    public Map<MimeMessage, Exception> sendBatch(List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failed = new IdentityHashMap<>();
+        if (messages.isEmpty()) {
+            return failed;
+        }
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Incluye los fallos de conexión: en ese caso vienen todos los mensajes
+            e.getFailedMessages().forEach((message, cause) -> failed.put((MimeMessage) message, cause));
+            if (failed.isEmpty()) {
+                messages.forEach(message -> failed.put(message, e));
+            }
+        } catch (MailException e) {
+            messages.forEach(message -> failed.put(message, e));
+        }
+        return failed;
+    }
+    
+    public MimeMessage createVerificationMessage(String toEmail, String verificationCode) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        helper.setFrom(fromEmail);
+        helper.setTo(toEmail);
+        helper.setSubject(appName + " - Verifica tu correo electrónico");
+        
+        String htmlContent = buildVerificationEmailHtml(verificationCode);
+        helper.setText(htmlContent, true);
 
-        String html = "<!DOCTYPE html>" +
-            "<html>" +
-            "<head>" +
-            "<meta charset='UTF-8'>" +
-            "<meta name='viewport' content='width=device-width, initial-scale=1.0'>" +
-            "<style>" +
-            "* { margin: 0; padding: 0; box-sizing: border-box; }" +
-            "body { font-family: -apple-system, BlinkMacSystemFont, 'Segoe UI', Roboto, 'Helvetica Neue', Arial, sans-serif; line-height: 1.6; background: linear-gradient(135deg, #FF4F81 0%, #8A2BE2 100%); padding: 40px 20px; min-height: 100vh; }" +
-            ".email-wrapper { max-width: 600px; margin: 0 auto; }" +
-            ".email-header { text-align: center; margin-bottom: 30px; }" +
-            ".logo { font-size: 48px; margin-bottom: 10px; }" +
-            ".logo-img { height: 56px; width: auto; margin-bottom: 10px; border: 0; outline: none; text-decoration: none; }" +
-            ".app-name { color: white; font-size: 32px; font-weight: bold; text-shadow: 0 2px 4px rgba(0,0,0,0.2); }" +
-            ".email-content { background: white; border-radius: 24px; padding: 50px 40px; box-shadow: 0 20px 60px rgba(0,0,0,0.3); }" +
-            ".greeting { font-size: 28px; font-weight: bold; color: #333; margin-bottom: 20px; text-align: center; }" +
-            ".message { font-size: 16px; color: #666; text-align: center; margin-bottom: 30px; line-height: 1.8; }" +
-            ".code-section { background: linear-gradient(135deg, #FFF5F7 0%, #F3E5F5 100%); border-radius: 16px; padding: 30px; margin: 30px 0; text-align: center; }" +
-            ".code-label { font-size: 14px; color: #666; margin-bottom: 15px; font-weight: 500; text-transform: uppercase; letter-spacing: 1px; }" +
-            ".code-box { background: white; color: #FF4F81; font-size: 40px; font-weight: bold; letter-spacing: 12px; padding: 25px 30px; border-radius: 12px; margin: 0 auto; display: inline-block; box-shadow: 0 4px 20px rgba(255, 79, 129, 0.2); border: 2px solid rgba(255, 79, 129, 0.1); }" +
-            ".validity { margin-top: 20px; font-size: 14px; color: #666; }" +
-            ".validity strong { color: #FF4F81; font-weight: 600; }" +
-            ".divider { height: 1px; background: linear-gradient(90deg, transparent, #E0E0E0, transparent); margin: 30px 0; }" +
-            ".info-box { background: #F8F9FA; border-left: 4px solid #FF4F81; border-radius: 8px; padding: 20px; margin: 25px 0; }" +
-            ".info-box p { font-size: 14px; color: #555; margin: 0; line-height: 1.6; }" +
-            ".footer { margin-top: 40px; padding-top: 30px; border-top: 1px solid #E0E0E0; text-align: center; }" +
-            ".footer p { font-size: 13px; color: #999; margin: 8px 0; }" +
-            ".footer-brand { font-weight: 600; color: #FF4F81; }" +
-            "@media only screen and (max-width: 600px) { " +
-            "body { padding: 20px 10px; } " +
-            ".email-content { padding: 30px 20px; } " +
-            ".code-box { font-size: 32px; letter-spacing: 8px; padding: 20px; } " +
-            ".greeting { font-size: 24px; } " +
-            "}" +
-            "</style>" +
-            "</head>" +
-            "<body>" +
-            "<div class='email-wrapper'>" +
-            "<div class='email-header'>" +
-            logoBlock +
-            "<div class='app-name'>&#161;Bienvenido a " + appName + "!</div>" +
-            "</div>" +
-            "<div class='email-content'>" +
-            "<div class='greeting'>Tu c&oacute;digo de verificaci&oacute;n es:</div>" +
-            "<div class='code-section'>" +
-            "<div class='code-label'>C&oacute;digo de Verificaci&oacute;n</div>" +
-            "<div class='code-box'>" + code + "</div>" +
-            "<div class='validity'>Este c&oacute;digo es v&aacute;lido por <strong>1 hora</strong></div>" +
-            "</div>" +
-            "<div class='divider'></div>" +
-            "<div class='message'>" +
-            "Ingresa este c&oacute;digo en la aplicaci&oacute;n para completar tu registro y comenzar a usar " + appName + "." +
-            "</div>" +
-            "<div class='info-box'>" +
-            "<p><strong>&#9888; Importante:</strong> Si no solicitaste este c&oacute;digo, puedes ignorar este mensaje.</p>" +
-            "</div>" +
-            "<div class='footer'>" +
-            "<p>Este es un correo autom&aacute;tico, por favor no responder.</p>" +
-            "<p class='footer-brand'>" + appName + " &copy; 2025</p>" +
-            "</div>" +
-            "</div>" +
-            "</div>" +
-            "</body>" +
-            "</html>";
-        return html;
+        // Adjuntar el logo inline si se usa un CID (mejor compatibilidad que data URIs)
+        if (inlineLogo != null) {
+            helper.addInline(appLogoUrl.substring(4), inlineLogo);
+        }
+        return message;
+    }
+    
+    public MimeMessage createPasswordResetMessage(String toEmail, String resetCode) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        helper.setFrom(fromEmail);
+        helper.setTo(toEmail);
+        helper.setSubject(appName + " - Recupera tu contraseña");
+        
+        String htmlContent = buildPasswordResetEmailHtml(resetCode);
+        helper.setText(htmlContent, true);
+        return message;
+    }
+    
+    private String buildVerificationEmailHtml(String code) {
+        return render(verificationTemplate, Map.of("code", code));
     }
     
     private String buildPasswordResetEmailHtml(String code) {
-        return """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <style>
-                    body {
-                        font-family: -apple-system, BlinkMacSystemFont, 'Segoe UI', Roboto, 'Helvetica Neue', Arial, sans-serif;
-                        line-height: 1.6;
-                        color: #333;
-                        max-width: 600px;
-                        margin: 0 auto;
-                        padding: 20px;
-                    }
-                    .container {
-                        background: linear-gradient(135deg, #FF4F81 0%, #8A2BE2 100%);
-                        border-radius: 16px;
-                        padding: 40px;
-                        text-align: center;
-                        color: white;
-                    }
-                    .code-box {
-                        background: white;
-                        color: #FF4F81;
-                        font-size: 32px;
-                        font-weight: bold;
-                        letter-spacing: 8px;
-                        padding: 20px;
-                        border-radius: 12px;
-                        margin: 30px 0;
-                        box-shadow: 0 4px 12px rgba(0,0,0,0.1);
-                    }
-                    .warning {
-                        background: rgba(255,255,255,0.2);
-                        padding: 15px;
-                        border-radius: 8px;
-                        margin-top: 20px;
-                    }
-                    .footer {
-                        margin-top: 30px;
-                        font-size: 14px;
-                        color: rgba(255,255,255,0.8);
-                    }
-                    h1 {
-                        margin: 0 0 20px 0;
-                        font-size: 28px;
-                    }
-                </style>
-            </head>
-            <body>
-                <div class="container">
-                    <h1>🔒 Recuperación de contraseña</h1>
-                    <p>Recibimos una solicitud para restablecer tu contraseña.</p>
-                    <p>Tu código de verificación es:</p>
-                    <div class="code-box">""" + code + """
-</div>
-                    <p>Este código es válido por <strong>1 hora</strong>.</p>
-                    <div class="warning">
-                        <strong>⚠️ Importante:</strong> Si no solicitaste este cambio, 
-                        ignora este mensaje y tu contraseña permanecerá sin cambios.
-                    </div>
-                    <div class="footer">
-                        <p>Este es un email automático, por favor no respondas este mensaje.</p>
-                    </div>
-                </div>
-            </body>
-            </html>
-            """;
+        return render(passwordResetTemplate, Map.of("code", code));
+    }
+    
+    private static String render(HtmlTemplate template, Map<String, String> values) {
+        StringBuilder buffer = RENDER_BUFFER.get();
+        if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+            buffer = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+            RENDER_BUFFER.set(buffer);
+        }
+        buffer.setLength(0);
+        template.renderTo(buffer, values);
+        return buffer.toString();
+    }
+    
+    private static HtmlTemplate loadTemplate(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return HtmlTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo cargar la plantilla de email " + path, e);
+        }
+    }
+    
+    /**
+     * Leer el logo una sola vez: PNG si existe (mejor compatibilidad con clientes de email), si no SVG
+     */
+    private static DataSource loadInlineLogo() {
+        String[][] candidates = {
+            {"static/images/app-logo.png", "image/png"},
+            {"static/images/app-logo.svg", "image/svg+xml"}
+        };
+        for (String[] candidate : candidates) {
+            ClassPathResource resource = new ClassPathResource(candidate[0]);
+            if (!resource.exists()) {
+                continue;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                return new ByteArrayDataSource(in.readAllBytes(), candidate[1]);
+            } catch (IOException e) {
+                log.warn("No se pudo leer el logo inline {}: {}", candidate[0], e.getMessage());
+            }
+        }
+        log.warn("Logo inline no encontrado en classpath");
+        return null;
     }
 }
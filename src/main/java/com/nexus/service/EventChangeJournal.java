@@ -0,0 +1,130 @@
+package com.nexus.service;
+
+import com.nexus.entity.EventChange;
+import com.nexus.entity.EventChange.ChangeOp;
+import com.nexus.repository.EventChangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diario de cambios de eventos por vínculo
+ *
+ * EventService registra cada alta, edición o borrado en la misma transacción
+ * que el cambio. El seq se toma incrementando user_links.change_seq: el
+ * bloqueo de esa fila serializa a los escritores del mismo vínculo hasta el
+ * commit, así que un lector nunca ve el seq N+1 sin el N.
+ *
+ * La compactación borra las entradas que tienen otra posterior del mismo
+ * evento (no cambian el resultado de ninguna consulta) y las de borrado más
+ * antiguas que la retención; en ese caso sube journal_floor_seq del vínculo y
+ * los clientes que pidan desde antes reciben resetRequired.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventChangeJournal {
+
+    private static final int COMPACTION_CHUNK_SIZE = 1000;
+
+    private final EventChangeRepository eventChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.journal.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    /**
+     * Bloquear la fila del vínculo antes de insertar un evento suyo
+     * El INSERT en events toma un bloqueo compartido sobre user_links por la
+     * clave foránea; si record() pide después el exclusivo, dos altas
+     * simultáneas en el mismo vínculo se esperan la una a la otra (deadlock).
+     * Con el exclusivo tomado primero, la segunda alta espera al commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockLink(Long linkId) {
+        eventChangeRepository.lockLink(linkId);
+    }
+
+    /**
+     * @return seq asignado a la entrada
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Long record(Long linkId, Long eventId, ChangeOp op) {
+        eventChangeRepository.incrementLinkSeq(linkId);
+        Long seq = eventChangeRepository.findLinkSeq(linkId);
+        eventChangeRepository.save(EventChange.builder()
+            .linkId(linkId)
+            .seq(seq)
+            .eventId(eventId)
+            .op(op)
+            .changedAt(Instant.now())
+            .build());
+        return seq;
+    }
+
+    @Scheduled(cron = "${app.journal.compaction-cron:0 0 4 * * *}")
+    public void compact() {
+        try {
+            int superseded = 0;
+            int removed;
+            do {
+                Integer rows = transactionTemplate.execute(status -> {
+                    List<Long> ids = eventChangeRepository.findSupersededIds(PageRequest.of(0, COMPACTION_CHUNK_SIZE));
+                    return ids.isEmpty() ? 0 : eventChangeRepository.deleteByIds(ids);
+                });
+                removed = rows != null ? rows : 0;
+                superseded += removed;
+            } while (removed == COMPACTION_CHUNK_SIZE);
+
+            Instant cutoff = Instant.now().minus(Duration.ofDays(tombstoneRetentionDays));
+            int tombstones = 0;
+            do {
+                Integer rows = transactionTemplate.execute(status -> purgeTombstones(cutoff));
+                removed = rows != null ? rows : 0;
+                tombstones += removed;
+            } while (removed == COMPACTION_CHUNK_SIZE);
+
+            int orphaned = 0;
+            do {
+                Integer rows = transactionTemplate.execute(status ->
+                    eventChangeRepository.purgeOrphanedChunk(COMPACTION_CHUNK_SIZE));
+                removed = rows != null ? rows : 0;
+                orphaned += removed;
+            } while (removed == COMPACTION_CHUNK_SIZE);
+
+            log.info("Diario de cambios compactado: {} reemplazadas, {} borrados caducados, {} de vínculos eliminados",
+                superseded, tombstones, orphaned);
+        } catch (Exception e) {
+            log.error("Error compactando el diario de cambios: {}", e.getMessage());
+        }
+    }
+
+    private int purgeTombstones(Instant cutoff) {
+        List<EventChange> expired = eventChangeRepository.findExpiredTombstones(
+            cutoff, PageRequest.of(0, COMPACTION_CHUNK_SIZE));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Long> floorByLink = new HashMap<>();
+        List<Long> ids = new ArrayList<>(expired.size());
+        for (EventChange change : expired) {
+            floorByLink.merge(change.getLinkId(), change.getSeq(), Math::max);
+            ids.add(change.getId());
+        }
+        floorByLink.forEach(eventChangeRepository::raiseLinkFloor);
+        return eventChangeRepository.deleteByIds(ids);
+    }
+}
@@ -2,10 +2,15 @@ package com.nexus.service;
 
 import com.nexus.dto.CreateEventRequest;
 import com.nexus.dto.CreateEventResponse;
+import com.nexus.dto.EventChangesResponse;
+import com.nexus.dto.EventOccurrenceResponse;
+import com.nexus.dto.EventPageResponse;
 import com.nexus.dto.EventResponse;
+import com.nexus.dto.EventStreamMessage;
 import com.nexus.dto.ReminderDTO;
 import com.nexus.dto.UpdateEventRequest;
 import com.nexus.entity.Event;
+import com.nexus.entity.EventChange;
 import com.nexus.entity.EventException;
 import com.nexus.entity.EventReminder;
 import com.nexus.entity.EventStatus;
@@ -13,12 +18,17 @@ import com.nexus.entity.Link;
 import com.nexus.entity.User;
 import com.nexus.exception.BadRequestException;
 import com.nexus.exception.ResourceNotFoundException;
+import com.nexus.repository.EventChangeRepository;
 import com.nexus.repository.EventExceptionRepository;
+import com.nexus.repository.EventReminderRepository;
 import com.nexus.repository.EventRepository;
 import com.nexus.repository.LinkRepository;
 import com.nexus.repository.UserRepository;
+import com.nexus.util.KeysetCursor;
+import com.nexus.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,10 +39,11 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
@@ -43,8 +54,27 @@ public class EventService {
     private final EventRepository eventRepository;
     private final LinkRepository linkRepository;
     private final UserRepository userRepository;
-    private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
     private final EventExceptionRepository eventExceptionRepository;
+    private final RecurrenceService recurrenceService;
+    private final EventReminderRepository eventReminderRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final ReminderDispatcher reminderDispatcher;
+    private final PendingApprovalCounters pendingApprovalCounters;
+    private final ResourceVersions resourceVersions;
+    private final EventChangeJournal eventChangeJournal;
+    private final EventChangeRepository eventChangeRepository;
+    private final EventStreamBroadcaster eventStreamBroadcaster;
+    
+    // Tamaño máximo de las listas IN al precargar recordatorios y excepciones
+    private static final int BULK_FETCH_CHUNK_SIZE = 1000;
+    
+    // Ventana máxima para expandir ocurrencias (un año y un margen)
+    private static final int MAX_OCCURRENCE_WINDOW_DAYS = 400;
+    
+    // Tamaño de página por defecto y máximo para los listados paginados
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -88,7 +118,8 @@ public class EventService {
             .reminderMinutes(request.getReminderMinutes())
             .build();
         
-        // 5. Guardar el evento
+        // 5. Guardar el evento (con el vínculo ya bloqueado para el diario de cambios)
+        eventChangeJournal.lockLink(activeLink.getId());
         Event savedEvent = eventRepository.save(event);
         log.info("Evento {} creado exitosamente con ID: {}", savedEvent.getTitle(), savedEvent.getId());
         log.info("Evento guardado - isRecurring: {}, pattern: {}", savedEvent.getIsRecurring(), savedEvent.getRecurrencePattern());
@@ -108,26 +139,34 @@ public class EventService {
         } else {
             savedEvent.setReminders(new ArrayList<>());
         }
+        pendingApprovalCounters.transition(null, PendingApprovalCounters.approverOf(savedEvent));
+        publishChange(activeLink, savedEvent.getId(), EventChange.ChangeOp.UPSERT);
+        
+        // 5.2. Actualizar el índice de disponibilidad del creador tras el commit
+        Event indexed = savedEvent;
+        TransactionHooks.afterCommit(() -> {
+            if (Boolean.TRUE.equals(indexed.getIsRecurring())) {
+                availabilityIndex.invalidate(userId);
+            } else {
+                availabilityIndex.markBusy(userId, indexed.getStartDateTime(), indexed.getEndDateTime());
+            }
+        });
         
         // 6. Obtener información de la pareja para notificación
         User partner = getPartnerUser(activeLink, userId);
         
-        // 7. Enviar notificación a la pareja
+        // 7. Encolar la notificación a la pareja (se envía tras el commit)
+        // El encolado exige la transacción actual: si falla, falla la creación entera
         String notificationStatus = "Notificación pendiente";
-        try {
-            if (partner != null) {
-                notificationService.sendEventApprovalNotification(
-                    partner.getEmail(),
-                    partner.getDisplayName() != null ? partner.getDisplayName() : partner.getNickname(),
-                    creator.getDisplayName() != null ? creator.getDisplayName() : creator.getNickname(),
-                    savedEvent.getTitle()
-                );
-                notificationStatus = "Notificación enviada exitosamente";
-                log.info("Notificación de aprobación enviada a {}", partner.getEmail());
-            }
-        } catch (Exception e) {
-            log.warn("Error enviando notificación de evento a la pareja: {}", e.getMessage());
-            notificationStatus = "Error enviando notificación";
+        if (partner != null) {
+            notificationOutboxService.enqueueEventApproval(
+                partner.getEmail(),
+                partner.getDisplayName() != null ? partner.getDisplayName() : partner.getNickname(),
+                creator.getDisplayName() != null ? creator.getDisplayName() : creator.getNickname(),
+                savedEvent.getTitle()
+            );
+            notificationStatus = "Notificación en cola de envío";
+            log.info("Notificación de aprobación encolada para {}", partner.getEmail());
         }
         
         // 8. Crear respuesta
@@ -145,6 +184,23 @@ public class EventService {
             .build();
     }
     
+    /**
+     * Registrar un cambio en los eventos del vínculo: nueva versión para los ETag,
+     * entrada en el diario de cambios y aviso en tiempo real a ambos miembros tras el commit
+     */
+    private void publishChange(Link link, Long eventId, EventChange.ChangeOp op) {
+        resourceVersions.bumpCalendar(link);
+        Long seq = eventChangeJournal.record(link.getId(), eventId, op);
+        EventStreamMessage message = EventStreamMessage.builder()
+            .linkId(link.getId())
+            .seq(seq)
+            .eventId(eventId)
+            .op(op)
+            .build();
+        List<Long> members = List.of(link.getInitiatorUser().getId(), link.getPartnerUser().getId());
+        TransactionHooks.afterCommit(() -> eventStreamBroadcaster.publish(members, message));
+    }
+    
     private void validateEventData(CreateEventRequest request) {
         // Parse fechas de String a Instant para validación
         Instant startInstant = Instant.parse(request.getStartDateTime());
@@ -191,22 +247,264 @@ public class EventService {
             .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
         
         List<Event> events = eventRepository.findByUserIdAndNotDeleted(userId);
-        return events.stream()
-            .map(this::mapToEventResponse)
-            .collect(Collectors.toList());
+        return mapToEventResponses(events);
     }
     
     public List<EventResponse> getPendingApprovalEvents(Long userId) {
         log.info("Obteniendo eventos pendientes de aprobación para usuario: {}", userId);
         
         List<Event> pendingEvents = eventRepository.findPendingApprovalByUserId(userId);
-        return pendingEvents.stream()
-            .map(this::mapToEventResponse)
+        return mapToEventResponses(pendingEvents);
+    }
+    
+    /**
+     * Obtener una página de eventos del calendario compartido en [from, to)
+     * Ordenados por (startDateTime, id); el cursor apunta al último evento devuelto
+     */
+    public EventPageResponse getUserEventsWindow(Long userId, Instant from, Instant to, String cursor, Integer limit) {
+        log.info("Obteniendo página de eventos para usuario {} entre {} y {}", userId, from, to);
+        
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("La fecha de inicio debe ser anterior a la fecha de fin");
+        }
+        if (from.plus(MAX_OCCURRENCE_WINDOW_DAYS, java.time.temporal.ChronoUnit.DAYS).isBefore(to)) {
+            throw new BadRequestException("El rango de consulta no puede exceder los " + MAX_OCCURRENCE_WINDOW_DAYS + " días");
+        }
+        int pageSize = resolvePageSize(limit);
+        KeysetCursor after = decodeCursor(cursor);
+        
+        userRepository.findActiveById(userId)
+            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        
+        Link activeLink = linkRepository.findActiveLinkByUserId(userId).orElse(null);
+        if (activeLink == null) {
+            return emptyPage();
+        }
+        
+        // Se pide una fila extra para saber si hay más páginas sin hacer un COUNT
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<Event> events = after == null
+            ? eventRepository.findPageByLinkIdAndDateRange(activeLink.getId(), from, to, page)
+            : eventRepository.findPageByLinkIdAndDateRangeAfter(
+                activeLink.getId(), from, to, after.getInstant(), after.getId(), page);
+        
+        return buildPage(events, pageSize, true);
+    }
+    
+    /**
+     * Obtener una página de eventos pendientes de aprobación, más recientes primero
+     */
+    public EventPageResponse getPendingApprovalEventsPage(Long userId, String cursor, Integer limit) {
+        log.info("Obteniendo página de eventos pendientes de aprobación para usuario: {}", userId);
+        
+        int pageSize = resolvePageSize(limit);
+        KeysetCursor before = decodeCursor(cursor);
+        
+        Link activeLink = linkRepository.findActiveLinkByUserId(userId).orElse(null);
+        if (activeLink == null) {
+            return emptyPage();
+        }
+        
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<Event> events = before == null
+            ? eventRepository.findPendingApprovalPageByLinkId(activeLink.getId(), userId, page)
+            : eventRepository.findPendingApprovalPageByLinkIdBefore(
+                activeLink.getId(), userId, before.getInstant(), before.getId(), page);
+        
+        return buildPage(events, pageSize, false);
+    }
+    
+    /**
+     * Cambios del calendario compartido con seq mayor que since (sincronización por deltas)
+     * Se lee en una sola transacción para que el diario y los eventos sean coherentes.
+     * Dentro de la página solo se devuelve la última operación de cada evento.
+     * since solo se acepta junto con el linkId que lo devolvió; sin él se responde resetRequired.
+     */
+    @Transactional(readOnly = true)
+    public EventChangesResponse getEventChanges(Long userId, Long linkIdSeen, Long since, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        
+        Link activeLink = linkRepository.findActiveLinkByUserId(userId).orElse(null);
+        if (activeLink == null) {
+            return EventChangesResponse.builder()
+                .resetRequired(true)
+                .events(new ArrayList<>())
+                .changes(new ArrayList<>())
+                .hasMore(false)
+                .build();
+        }
+        
+        Long linkId = activeLink.getId();
+        Long latestSeq = eventChangeRepository.findLinkSeq(linkId);
+        Long floorSeq = eventChangeRepository.findLinkFloorSeq(linkId);
+        
+        // Sin punto de partida, compactado, sin vínculo o de otro vínculo: calendario completo
+        // (un seq solo tiene sentido junto al vínculo al que pertenece)
+        if (since == null || since < floorSeq || since > latestSeq
+                || linkIdSeen == null || !linkIdSeen.equals(linkId)) {
+            return EventChangesResponse.builder()
+                .linkId(linkId)
+                .latestSeq(latestSeq)
+                .resetRequired(true)
+                .events(mapToEventResponses(eventRepository.findByLinkIdAndNotDeleted(linkId)))
+                .changes(new ArrayList<>())
+                .nextSince(latestSeq)
+                .hasMore(false)
+                .build();
+        }
+        
+        List<EventChange> page = eventChangeRepository.findChangesSince(linkId, since, PageRequest.of(0, pageSize));
+        
+        // Compactar: la última operación de cada evento, en orden de seq
+        Map<Long, EventChange> latestByEvent = new LinkedHashMap<>();
+        for (EventChange change : page) {
+            latestByEvent.remove(change.getEventId());
+            latestByEvent.put(change.getEventId(), change);
+        }
+        
+        List<Long> upsertIds = latestByEvent.values().stream()
+            .filter(change -> change.getOp() == EventChange.ChangeOp.UPSERT)
+            .map(EventChange::getEventId)
             .collect(Collectors.toList());
+        Map<Long, EventResponse> current = new HashMap<>();
+        if (!upsertIds.isEmpty()) {
+            for (EventResponse response : mapToEventResponses(eventRepository.findWithLinkByIdIn(upsertIds))) {
+                current.put(response.getId(), response);
+            }
+        }
+        
+        List<EventChangesResponse.Change> changes = new ArrayList<>(latestByEvent.size());
+        for (EventChange change : latestByEvent.values()) {
+            EventResponse event = current.get(change.getEventId());
+            // Un UPSERT sin evento tiene un DELETE posterior fuera de esta página
+            if (change.getOp() == EventChange.ChangeOp.UPSERT && event == null) {
+                continue;
+            }
+            changes.add(EventChangesResponse.Change.builder()
+                .seq(change.getSeq())
+                .eventId(change.getEventId())
+                .op(change.getOp())
+                .changedAt(change.getChangedAt())
+                .event(event)
+                .build());
+        }
+        
+        return EventChangesResponse.builder()
+            .linkId(linkId)
+            .latestSeq(latestSeq)
+            .resetRequired(false)
+            .changes(changes)
+            .nextSince(page.isEmpty() ? since : page.get(page.size() - 1).getSeq())
+            .hasMore(page.size() == pageSize)
+            .build();
+    }
+    
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+    
+    private KeysetCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Cursor de paginación inválido");
+        }
+    }
+    
+    /**
+     * El tiempo ocupado se indexa por creador; ediciones y borrados no son
+     * aditivos, así que se descarta su bitmap una vez confirmada la transacción
+     */
+    private void invalidateAvailabilityAfterCommit(Event event) {
+        Long creatorId = event.getCreator().getId();
+        TransactionHooks.afterCommit(() -> availabilityIndex.invalidate(creatorId));
+    }
+    
+    private EventPageResponse emptyPage() {
+        return EventPageResponse.builder()
+            .events(new ArrayList<>())
+            .hasMore(false)
+            .build();
+    }
+    
+    /**
+     * Recorta la fila extra y genera el cursor a partir del último evento de la página
+     * @param byStart true si la clave es startDateTime, false si es createdAt
+     */
+    private EventPageResponse buildPage(List<Event> events, int pageSize, boolean byStart) {
+        boolean hasMore = events.size() > pageSize;
+        List<Event> pageEvents = hasMore ? events.subList(0, pageSize) : events;
+        
+        String nextCursor = null;
+        if (hasMore) {
+            Event last = pageEvents.get(pageEvents.size() - 1);
+            nextCursor = KeysetCursor.encode(byStart ? last.getStartDateTime() : last.getCreatedAt(), last.getId());
+        }
+        
+        return EventPageResponse.builder()
+            .events(mapToEventResponses(pageEvents))
+            .nextCursor(nextCursor)
+            .hasMore(hasMore)
+            .build();
+    }
+    
+    /**
+     * Obtener las ocurrencias concretas del calendario compartido en [from, to)
+     * Las series recurrentes se expanden en el servidor aplicando sus excepciones
+     */
+    public List<EventOccurrenceResponse> getUserOccurrences(Long userId, Instant from, Instant to) {
+        log.info("Obteniendo ocurrencias para usuario {} entre {} y {}", userId, from, to);
+        
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("La fecha de inicio debe ser anterior a la fecha de fin");
+        }
+        if (from.plus(MAX_OCCURRENCE_WINDOW_DAYS, java.time.temporal.ChronoUnit.DAYS).isBefore(to)) {
+            throw new BadRequestException("El rango de consulta no puede exceder los " + MAX_OCCURRENCE_WINDOW_DAYS + " días");
+        }
+        
+        userRepository.findActiveById(userId)
+            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        
+        Link activeLink = linkRepository.findActiveLinkByUserId(userId).orElse(null);
+        if (activeLink == null) {
+            return new ArrayList<>();
+        }
+        
+        List<Event> candidates = eventRepository.findOccurrenceCandidatesByLinkId(activeLink.getId(), from, to);
+        return recurrenceService.expand(candidates, from, to).stream()
+            .map(this::mapToOccurrenceResponse)
+            .collect(Collectors.toList());
+    }
+    
+    private EventOccurrenceResponse mapToOccurrenceResponse(RecurrenceService.Occurrence occurrence) {
+        Event event = occurrence.getEvent();
+        return EventOccurrenceResponse.builder()
+            .eventId(event.getId())
+            .title(event.getTitle())
+            .occurrenceStart(occurrence.getStart())
+            .occurrenceEnd(occurrence.getEnd())
+            .location(event.getLocation())
+            .category(event.getCategory())
+            .color(event.getColor())
+            .status(event.getStatus())
+            .creatorUserId(event.getCreator().getId())
+            .linkId(event.getLink().getId())
+            .isRecurring(event.getIsRecurring())
+            .recurrencePattern(event.getRecurrencePattern())
+            .build();
     }
     
     public long countPendingApprovals(Long userId) {
-        return eventRepository.countPendingApprovalByUserId(userId);
+        return pendingApprovalCounters.get(userId);
     }
     
     @Transactional
@@ -228,6 +526,7 @@ public class EventService {
         }
         
         // Aprobar el evento
+        Long pendingBefore = PendingApprovalCounters.approverOf(event);
         event.setPartnerApproved(true);
         event.setPartnerApprovedAt(Instant.now());
         
@@ -239,27 +538,24 @@ public class EventService {
         }
         
         Event savedEvent = eventRepository.save(event);
+        pendingApprovalCounters.transition(pendingBefore, PendingApprovalCounters.approverOf(savedEvent));
+        publishChange(savedEvent.getLink(), eventId, EventChange.ChangeOp.UPSERT);
+        TransactionHooks.afterCommit(() -> reminderDispatcher.reschedule(eventId));
         
         log.info("Evento {} aprobado por usuario {}", eventId, userId);
         
         // Enviar notificación al creador
-        try {
-            User creator = savedEvent.getCreator();
-            notificationService.sendEventConfirmedNotification(
-                creator.getEmail(),
-                creator.getDisplayName() != null ? creator.getDisplayName() : creator.getNickname(),
-                savedEvent.getTitle()
-            );
-        } catch (Exception e) {
-            log.warn("Error enviando notificación de confirmación: {}", e.getMessage());
-        }
+        User creator = savedEvent.getCreator();
+        notificationOutboxService.enqueueEventConfirmed(
+            creator.getEmail(),
+            creator.getDisplayName() != null ? creator.getDisplayName() : creator.getNickname(),
+            savedEvent.getTitle()
+        );
         
         return mapToEventResponse(savedEvent);
     }
     
     private EventResponse mapToEventResponse(Event event) {
-        User partner = getPartnerUser(event.getLink(), event.getCreator().getId());
-        
         // Obtener las fechas de excepción si el evento es recurrente
         List<Instant> exceptionDates = new java.util.ArrayList<>();
         if (Boolean.TRUE.equals(event.getIsRecurring())) {
@@ -270,6 +566,66 @@ public class EventService {
             }
         }
         
+        List<ReminderDTO> reminders = event.getReminders() != null ? event.getReminders().stream()
+            .map(r -> new ReminderDTO(r.getMinutesBefore(), r.getLabel()))
+            .collect(java.util.stream.Collectors.toList()) : new java.util.ArrayList<>();
+        
+        return buildEventResponse(event, reminders, exceptionDates);
+    }
+    
+    /**
+     * Mapear una lista de eventos precargando recordatorios y excepciones de todo el
+     * conjunto con dos consultas IN, en lugar de dos consultas por evento (N+1).
+     * Usar en todos los endpoints que devuelven listas de eventos.
+     */
+    private List<EventResponse> mapToEventResponses(List<Event> events) {
+        if (events.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Long> eventIds = new ArrayList<>(events.size());
+        List<Long> recurringIds = new ArrayList<>();
+        for (Event event : events) {
+            eventIds.add(event.getId());
+            if (Boolean.TRUE.equals(event.getIsRecurring())) {
+                recurringIds.add(event.getId());
+            }
+        }
+        
+        Map<Long, List<ReminderDTO>> remindersByEvent = new HashMap<>();
+        for (int i = 0; i < eventIds.size(); i += BULK_FETCH_CHUNK_SIZE) {
+            List<Long> chunk = eventIds.subList(i, Math.min(i + BULK_FETCH_CHUNK_SIZE, eventIds.size()));
+            for (Object[] row : eventReminderRepository.findReminderRowsByEventIdIn(chunk)) {
+                remindersByEvent
+                    .computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(new ReminderDTO((Integer) row[1], (String) row[2]));
+            }
+        }
+        
+        Map<Long, List<Instant>> exceptionsByEvent = new HashMap<>();
+        for (int i = 0; i < recurringIds.size(); i += BULK_FETCH_CHUNK_SIZE) {
+            List<Long> chunk = recurringIds.subList(i, Math.min(i + BULK_FETCH_CHUNK_SIZE, recurringIds.size()));
+            for (Object[] row : eventExceptionRepository.findExceptionDatesByEventIdIn(chunk)) {
+                exceptionsByEvent
+                    .computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add((Instant) row[1]);
+            }
+        }
+        
+        List<EventResponse> responses = new ArrayList<>(events.size());
+        for (Event event : events) {
+            responses.add(buildEventResponse(
+                event,
+                remindersByEvent.getOrDefault(event.getId(), new ArrayList<>()),
+                exceptionsByEvent.getOrDefault(event.getId(), new ArrayList<>())
+            ));
+        }
+        return responses;
+    }
+    
+    private EventResponse buildEventResponse(Event event, List<ReminderDTO> reminders, List<Instant> exceptionDates) {
+        User partner = getPartnerUser(event.getLink(), event.getCreator().getId());
+        
         return EventResponse.builder()
             .id(event.getId())
             .title(event.getTitle())
@@ -294,9 +650,7 @@ public class EventService {
             .recurrencePattern(event.getRecurrencePattern())
             .color(event.getColor())
             .reminderMinutes(event.getReminderMinutes())
-            .reminders(event.getReminders() != null ? event.getReminders().stream()
-                .map(r -> new ReminderDTO(r.getMinutesBefore(), r.getLabel()))
-                .collect(java.util.stream.Collectors.toList()) : new java.util.ArrayList<>())
+            .reminders(reminders)
             .exceptionDates(exceptionDates)
             .createdAt(event.getCreatedAt())
             .updatedAt(event.getUpdatedAt())
@@ -333,6 +687,7 @@ public class EventService {
         
         // Determinar si se están modificando campos que requieren re-aprobación
         boolean requiresReapproval = false;
+        Long pendingBefore = PendingApprovalCounters.approverOf(event);
         
         // 3. Actualizar campos y detectar cambios importantes
         if (request.getTitle() != null) {
@@ -400,6 +755,11 @@ public class EventService {
         
         // 6. Guardar
         Event updatedEvent = eventRepository.save(event);
+        pendingApprovalCounters.transition(pendingBefore, PendingApprovalCounters.approverOf(updatedEvent));
+        publishChange(link, eventId, EventChange.ChangeOp.UPSERT);
+        recurrenceService.evict(eventId);
+        invalidateAvailabilityAfterCommit(event);
+        TransactionHooks.afterCommit(() -> reminderDispatcher.reschedule(eventId));
         log.info("Evento {} actualizado exitosamente", eventId);
         
         // 7. Notificar a la otra persona SOLO si requiere re-aprobación
@@ -408,18 +768,14 @@ public class EventService {
                 getPartnerUser(link, userId) : 
                 event.getCreator();
             
-            try {
-                if (otherUser != null) {
-                    notificationService.sendEventApprovalNotification(
-                        otherUser.getEmail(),
-                        otherUser.getDisplayName() != null ? otherUser.getDisplayName() : otherUser.getNickname(),
-                        user.getDisplayName() != null ? user.getDisplayName() : user.getNickname(),
-                        updatedEvent.getTitle()
-                    );
-                    log.info("Notificación de edición enviada a {}", otherUser.getEmail());
-                }
-            } catch (Exception e) {
-                log.warn("Error enviando notificación de edición: {}", e.getMessage());
+            if (otherUser != null) {
+                notificationOutboxService.enqueueEventApproval(
+                    otherUser.getEmail(),
+                    otherUser.getDisplayName() != null ? otherUser.getDisplayName() : otherUser.getNickname(),
+                    user.getDisplayName() != null ? user.getDisplayName() : user.getNickname(),
+                    updatedEvent.getTitle()
+                );
+                log.info("Notificación de edición encolada para {}", otherUser.getEmail());
             }
         } else {
             log.info("Edición de campos no críticos (recordatorios, color, etc.) - No se requiere re-aprobación");
@@ -456,6 +812,8 @@ public class EventService {
         String eventTitle = event.getTitle();
         String creatorEmail = creator.getEmail();
         String creatorDisplayName = creator.getDisplayName() != null ? creator.getDisplayName() : creator.getNickname();
+        Long pendingBefore = PendingApprovalCounters.approverOf(event);
+        Link link = event.getLink();
         
         // 5. Ejecutar UPDATE nativo SQL (bypass completo de JPA/Hibernate)
         log.info("Ejecutando UPDATE nativo para cambiar status a REJECTED");
@@ -466,6 +824,9 @@ public class EventService {
         }
         
         log.info("UPDATE ejecutado: {} filas actualizadas", rowsUpdated);
+        pendingApprovalCounters.transition(pendingBefore, null);
+        publishChange(link, eventId, EventChange.ChangeOp.UPSERT);
+        TransactionHooks.afterCommit(() -> reminderDispatcher.cancel(eventId));
         
         // 6. CRÍTICO: Limpiar el caché de primer nivel de Hibernate
         // Esto fuerza que cualquier find() posterior vaya a la base de datos
@@ -482,16 +843,12 @@ public class EventService {
         log.info("Evento {} rechazado exitosamente - Status: {}", eventId, event.getStatus());
         
         // 8. Enviar notificación al creador
-        try {
-            notificationService.sendEventRejectedNotification(
-                creatorEmail,
-                creatorDisplayName,
-                eventTitle
-            );
-            log.info("Notificación de rechazo enviada a {}", creatorEmail);
-        } catch (Exception e) {
-            log.warn("Error enviando notificación de rechazo: {}", e.getMessage());
-        }
+        notificationOutboxService.enqueueEventRejected(
+            creatorEmail,
+            creatorDisplayName,
+            eventTitle
+        );
+        log.info("Notificación de rechazo encolada para {}", creatorEmail);
         
         // 9. Retornar el evento con el status correcto (REJECTED)
         return mapToEventResponse(event);
@@ -526,22 +883,24 @@ public class EventService {
         User partner = getPartnerUser(activeLink, userId);
         String deletedBy = user.getDisplayName() != null ? user.getDisplayName() : user.getNickname();
         
+        Long pendingBefore = PendingApprovalCounters.approverOf(event);
         eventRepository.delete(event);
+        pendingApprovalCounters.transition(pendingBefore, null);
+        publishChange(activeLink, eventId, EventChange.ChangeOp.DELETE);
+        recurrenceService.evict(eventId);
+        invalidateAvailabilityAfterCommit(event);
+        TransactionHooks.afterCommit(() -> reminderDispatcher.cancel(eventId));
         log.info("Evento {} eliminado exitosamente por usuario {}", eventId, userId);
         
         // 6. Notificar a la pareja
-        try {
-            if (partner != null) {
-                notificationService.sendEventDeletedNotification(
-                    partner.getEmail(),
-                    partner.getDisplayName() != null ? partner.getDisplayName() : partner.getNickname(),
-                    deletedBy,
-                    event.getTitle()
-                );
-                log.info("Notificación de eliminación enviada a {}", partner.getEmail());
-            }
-        } catch (Exception e) {
-            log.warn("Error enviando notificación de eliminación: {}", e.getMessage());
+        if (partner != null) {
+            notificationOutboxService.enqueueEventDeleted(
+                partner.getEmail(),
+                partner.getDisplayName() != null ? partner.getDisplayName() : partner.getNickname(),
+                deletedBy,
+                event.getTitle()
+            );
+            log.info("Notificación de eliminación encolada para {}", partner.getEmail());
         }
     }
     
@@ -594,6 +953,10 @@ public class EventService {
             .build();
         
         eventExceptionRepository.save(exception);
+        publishChange(link, eventId, EventChange.ChangeOp.UPSERT);
+        recurrenceService.evict(eventId);
+        invalidateAvailabilityAfterCommit(event);
+        TransactionHooks.afterCommit(() -> reminderDispatcher.reschedule(eventId));
         log.info("Excepción agregada exitosamente al evento {}", eventId);
     }
 }
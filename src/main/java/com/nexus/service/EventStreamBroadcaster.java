@@ -0,0 +1,309 @@
+package com.nexus.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexus.dto.EventStreamMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Canales Server-Sent Events por usuario con los cambios del calendario compartido
+ *
+ * EventService publica tras el commit un aviso compacto (vínculo, seq, evento,
+ * operación) para los dos miembros del vínculo. Cada aviso se serializa una
+ * sola vez y se deja en el buffer acotado de cada conexión abierta; un grupo
+ * fijo de sender-threads hilos escribe en los sockets, así que quien publica
+ * nunca espera a un cliente lento. Si el buffer de una conexión se llena, la
+ * conexión se cierra: el cliente se reconecta y recupera lo perdido en
+ * /events/changes con su último seq. Un latido periódico mantiene abiertos
+ * los proxies y detecta las conexiones muertas.
+ *
+ * Una escritura bloqueada (cliente que no lee y socket lleno) ocuparía un
+ * sender indefinidamente; un vigilante cierra la conexión cuya escritura
+ * supera send-timeout-millis e interrumpe al hilo para devolverlo al grupo.
+ *
+ * Como las demás estructuras en memoria, supone una sola instancia del backend.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventStreamBroadcaster {
+
+    private final ObjectMapper objectMapper;
+
+    // El cliente se reconecta al vencer; acota lo que vive una petición asíncrona
+    @Value("${app.stream.timeout-millis:1800000}")
+    private long timeoutMillis;
+
+    @Value("${app.stream.reconnect-millis:5000}")
+    private long reconnectMillis;
+
+    // Avisos pendientes de escribir por conexión antes de cerrarla
+    @Value("${app.stream.buffer-size:32}")
+    private int bufferSize;
+
+    @Value("${app.stream.max-connections-per-user:4}")
+    private int maxConnectionsPerUser;
+
+    @Value("${app.stream.sender-threads:4}")
+    private int senderThreads;
+
+    // Tiempo máximo de una escritura en el socket antes de cerrar la conexión
+    @Value("${app.stream.send-timeout-millis:5000}")
+    private long sendTimeoutMillis;
+
+    private final Map<Long, List<Connection>> connections = new ConcurrentHashMap<>();
+    private ExecutorService senders;
+
+    @PostConstruct
+    void startSenders() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "event-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopSenders() {
+        connections.values().forEach(list -> list.forEach(this::close));
+        senders.shutdownNow();
+    }
+
+    /**
+     * Abrir un canal para el usuario; si ya tiene el máximo se cierra el más antiguo
+     */
+    public SseEmitter subscribe(Long userId) {
+        Connection connection = new Connection(userId, new SseEmitter(timeoutMillis), new ArrayBlockingQueue<>(bufferSize));
+        connection.emitter.onCompletion(() -> remove(connection));
+        connection.emitter.onTimeout(() -> close(connection));
+        connection.emitter.onError(e -> remove(connection));
+
+        List<Connection> evicted = new ArrayList<>();
+        connections.compute(userId, (id, list) -> {
+            List<Connection> updated = list != null ? list : new CopyOnWriteArrayList<>();
+            while (updated.size() >= maxConnectionsPerUser) {
+                evicted.add(updated.remove(0));
+            }
+            updated.add(connection);
+            return updated;
+        });
+        evicted.forEach(this::close);
+
+        enqueue(connection, SseEmitter.event()
+            .name("ready")
+            .reconnectTime(reconnectMillis)
+            .data(userId)
+            .build());
+        log.debug("Canal de cambios abierto para usuario {}", userId);
+        return connection.emitter;
+    }
+
+    /**
+     * Enviar el aviso a las conexiones abiertas de los usuarios indicados
+     */
+    public void publish(Collection<Long> userIds, EventStreamMessage message) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            log.error("No se pudo serializar el aviso del evento {}: {}", message.getEventId(), e.getMessage());
+            return;
+        }
+        Set<DataWithMediaType> event = null;
+        for (Long userId : userIds) {
+            List<Connection> list = connections.get(userId);
+            if (list == null) {
+                continue;
+            }
+            if (event == null) {
+                event = SseEmitter.event()
+                    .name("event-change")
+                    .id(String.valueOf(message.getSeq()))
+                    .data(json)
+                    .build();
+            }
+            for (Connection connection : list) {
+                enqueue(connection, event);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stream.heartbeat-millis:25000}")
+    public void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        int open = 0;
+        for (List<Connection> list : connections.values()) {
+            for (Connection connection : list) {
+                enqueue(connection, ping);
+                open++;
+            }
+        }
+        log.debug("Latido enviado a {} canales de cambios", open);
+    }
+
+    /**
+     * Cerrar las conexiones con una escritura en curso más larga que sendTimeoutMillis
+     */
+    @Scheduled(fixedDelayString = "${app.stream.send-check-millis:1000}")
+    public void expireStalledSends() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (List<Connection> list : connections.values()) {
+            for (Connection connection : list) {
+                boolean stalled;
+                synchronized (connection) {
+                    stalled = connection.sender != null && now - connection.sendStartedNanos > timeoutNanos;
+                }
+                if (stalled) {
+                    log.warn("Canal de cambios del usuario {} bloqueado más de {} ms escribiendo, cerrando la conexión",
+                        connection.userId, sendTimeoutMillis);
+                    close(connection);
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffer lleno: el cliente no da abasto y se le cierra la conexión
+     */
+    private void enqueue(Connection connection, Set<DataWithMediaType> event) {
+        if (connection.closed.get()) {
+            return;
+        }
+        if (!connection.buffer.offer(event)) {
+            log.warn("Canal de cambios del usuario {} saturado, cerrando la conexión", connection.userId);
+            close(connection);
+            return;
+        }
+        scheduleDrain(connection);
+    }
+
+    private void scheduleDrain(Connection connection) {
+        if (!connection.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> drain(connection));
+        } catch (RejectedExecutionException e) {
+            connection.draining.set(false);
+        }
+    }
+
+    /**
+     * Un solo hilo escribe en cada conexión a la vez; al terminar se vuelve a
+     * comprobar el buffer por si llegó algo entre el último poll y la liberación
+     */
+    private void drain(Connection connection) {
+        try {
+            Set<DataWithMediaType> event;
+            while (!connection.closed.get() && (event = connection.buffer.poll()) != null) {
+                send(connection, event);
+            }
+        } catch (Exception e) {
+            log.debug("Canal de cambios del usuario {} cerrado por el cliente: {}", connection.userId, e.getMessage());
+            close(connection);
+            return;
+        } finally {
+            connection.draining.set(false);
+        }
+        if (connection.closed.get()) {
+            // Cerrada durante una escritura: el emisor se completa aquí
+            complete(connection);
+        } else if (!connection.buffer.isEmpty()) {
+            scheduleDrain(connection);
+        }
+    }
+
+    private void send(Connection connection, Set<DataWithMediaType> event) throws IOException {
+        synchronized (connection) {
+            connection.sendStartedNanos = System.nanoTime();
+            connection.sender = Thread.currentThread();
+        }
+        try {
+            connection.emitter.send(event);
+        } finally {
+            synchronized (connection) {
+                connection.sender = null;
+            }
+        }
+    }
+
+    /**
+     * Con una escritura en curso no se completa el emisor (esperaría a que
+     * termine, con el mismo monitor): se interrumpe al hilo que escribe y es
+     * él quien lo completa al salir de drain(). La interrupción solo se entrega
+     * mientras ese hilo sigue escribiendo en esta conexión.
+     */
+    private void close(Connection connection) {
+        remove(connection);
+        synchronized (connection) {
+            if (connection.sender != null) {
+                connection.sender.interrupt();
+                return;
+            }
+        }
+        complete(connection);
+    }
+
+    private void complete(Connection connection) {
+        try {
+            connection.emitter.complete();
+        } catch (Exception e) {
+            log.debug("Error cerrando el canal de cambios del usuario {}: {}", connection.userId, e.getMessage());
+        }
+    }
+
+    private void remove(Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connection.buffer.clear();
+        connections.computeIfPresent(connection.userId, (id, list) -> {
+            list.remove(connection);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static final class Connection {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Escritura en curso (protegidos por el monitor de la conexión)
+        private Thread sender;
+        private long sendStartedNanos;
+
+        private Connection(Long userId, SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> buffer) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+}
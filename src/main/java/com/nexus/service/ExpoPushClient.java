@@ -0,0 +1,203 @@
+package com.nexus.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexus.dto.PushMessage;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cliente HTTP de la API de push de Expo
+ *
+ * Un único HttpClient del JDK reutiliza las conexiones (keep-alive, HTTP/2)
+ * entre envíos; todas las llamadas tienen timeout de conexión y de petición.
+ * Los cuerpos grandes se envían comprimidos con gzip y las respuestas se
+ * aceptan comprimidas. Las URLs son configurables para probar contra un stub local.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExpoPushClient {
+
+    // Límites de la API de Expo
+    public static final int MAX_MESSAGES_PER_REQUEST = 100;
+    public static final int MAX_RECEIPTS_PER_REQUEST = 1000;
+
+    // Expo recomienda comprimir los cuerpos de más de 1 KiB
+    private static final int GZIP_THRESHOLD_BYTES = 1024;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.push.send-url:https://exp.host/--/api/v2/push/send}")
+    private String sendUrl;
+
+    @Value("${app.push.receipts-url:https://exp.host/--/api/v2/push/getReceipts}")
+    private String receiptsUrl;
+
+    // Token de acceso de Expo (opcional, solo si el proyecto exige push seguro)
+    @Value("${app.push.access-token:}")
+    private String accessToken;
+
+    @Value("${app.push.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${app.push.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    private HttpClient httpClient;
+
+    /**
+     * Resultado de un mensaje: id para consultar el recibo, o el error inmediato
+     */
+    @lombok.Value
+    public static class Ticket {
+        String status;
+        String id;
+        String error;
+        String message;
+
+        public boolean isOk() {
+            return "ok".equals(status);
+        }
+    }
+
+    @lombok.Value
+    public static class Receipt {
+        String status;
+        String error;
+        String message;
+
+        public boolean isOk() {
+            return "ok".equals(status);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .build();
+    }
+
+    /**
+     * Envía hasta MAX_MESSAGES_PER_REQUEST mensajes en una petición
+     * Los tickets se devuelven en el mismo orden que los mensajes.
+     * @throws IOException si la petición falla o la respuesta no es 2xx
+     */
+    public List<Ticket> send(List<PushMessage> messages) throws IOException, InterruptedException {
+        if (messages.size() > MAX_MESSAGES_PER_REQUEST) {
+            throw new IllegalArgumentException("Máximo " + MAX_MESSAGES_PER_REQUEST + " mensajes por petición");
+        }
+        List<Map<String, Object>> payload = new ArrayList<>(messages.size());
+        for (PushMessage message : messages) {
+            Map<String, Object> notification = new LinkedHashMap<>();
+            notification.put("to", message.getTo());
+            notification.put("sound", "default");
+            notification.put("title", message.getTitle());
+            notification.put("body", message.getBody());
+            notification.put("priority", "high");
+            if (message.getData() != null && !message.getData().isEmpty()) {
+                notification.put("data", message.getData());
+            }
+            payload.add(notification);
+        }
+
+        JsonNode data = post(sendUrl, payload).path("data");
+        List<Ticket> tickets = new ArrayList<>(messages.size());
+        for (JsonNode node : data) {
+            tickets.add(new Ticket(
+                node.path("status").asText(null),
+                node.path("id").asText(null),
+                node.path("details").path("error").asText(null),
+                node.path("message").asText(null)
+            ));
+        }
+        return tickets;
+    }
+
+    /**
+     * Consulta los recibos de hasta MAX_RECEIPTS_PER_REQUEST tickets
+     * Los tickets cuyo recibo todavía no está listo no aparecen en el resultado.
+     */
+    public Map<String, Receipt> getReceipts(Collection<String> ticketIds) throws IOException, InterruptedException {
+        if (ticketIds.size() > MAX_RECEIPTS_PER_REQUEST) {
+            throw new IllegalArgumentException("Máximo " + MAX_RECEIPTS_PER_REQUEST + " recibos por petición");
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("ids", ticketIds);
+
+        JsonNode data = post(receiptsUrl, payload).path("data");
+        Map<String, Receipt> receipts = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = data.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode node = field.getValue();
+            receipts.put(field.getKey(), new Receipt(
+                node.path("status").asText(null),
+                node.path("details").path("error").asText(null),
+                node.path("message").asText(null)
+            ));
+        }
+        return receipts;
+    }
+
+    private JsonNode post(String url, Object payload) throws IOException, InterruptedException {
+        byte[] body = objectMapper.writeValueAsBytes(payload);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+            .timeout(Duration.ofMillis(requestTimeoutMs))
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .header("Accept-Encoding", "gzip");
+        if (accessToken != null && !accessToken.isBlank()) {
+            request.header("Authorization", "Bearer " + accessToken);
+        }
+        if (body.length > GZIP_THRESHOLD_BYTES) {
+            request.header("Content-Encoding", "gzip");
+            body = gzip(body);
+        }
+
+        HttpResponse<InputStream> response = httpClient.send(
+            request.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(),
+            HttpResponse.BodyHandlers.ofInputStream());
+
+        try (InputStream raw = response.body();
+             InputStream in = response.headers().firstValue("Content-Encoding")
+                 .filter("gzip"::equalsIgnoreCase).isPresent() ? new GZIPInputStream(raw) : raw) {
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("Expo respondió HTTP " + response.statusCode());
+            }
+            return objectMapper.readTree(in);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,127 @@
+package com.nexus.service;
+
+import com.nexus.repository.ExternalEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Mantenimiento programado de eventos externos
+ *
+ * 1. Marca como eliminados los eventos de calendarios desvinculados o eliminados.
+ * 2. Borra físicamente los eventos eliminados hace más de la retención configurada.
+ *
+ * Ambos pasos son sentencias por conjuntos con LIMIT, cada bloque en su propia
+ * transacción corta para no mantener bloqueos largos sobre calendar_events.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExternalCalendarMaintenanceService {
+
+    private final ExternalEventRepository externalEventRepository;
+    private final CalendarMerkleIndex calendarMerkleIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    // Filas por sentencia
+    @Value("${app.maintenance.chunk-size:5000}")
+    private int chunkSize;
+
+    // Días que se conservan los eventos eliminados antes del borrado físico
+    @Value("${app.maintenance.purge-retention-days:30}")
+    private long purgeRetentionDays;
+
+    // Métricas acumuladas desde el arranque
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalOrphansDeleted = new AtomicLong();
+    private final AtomicLong totalPurged = new AtomicLong();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    @Scheduled(cron = "${app.maintenance.cleanup-cron:0 15 * * * *}")
+    public void runScheduledCleanup() {
+        try {
+            runCleanup();
+        } catch (Exception e) {
+            log.error("Error en el mantenimiento de eventos externos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ejecutar ambos pasos y devolver las filas afectadas
+     */
+    public Map<String, Object> runCleanup() {
+        Instant startedAt = Instant.now();
+
+        int orphans = cleanupOrphanedEvents();
+        if (orphans > 0) {
+            // Los árboles de hashes de esos calendarios ya no son válidos
+            calendarMerkleIndex.invalidateAll();
+        }
+        int purged = purgeDeletedEvents();
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("startedAt", startedAt);
+        run.put("durationMs", Duration.between(startedAt, Instant.now()).toMillis());
+        run.put("orphansDeleted", orphans);
+        run.put("purged", purged);
+
+        runs.incrementAndGet();
+        totalOrphansDeleted.addAndGet(orphans);
+        totalPurged.addAndGet(purged);
+        lastRun = run;
+
+        log.info("Mantenimiento de eventos externos: {} huérfanos eliminados, {} purgados en {} ms",
+            orphans, purged, run.get("durationMs"));
+        return run;
+    }
+
+    /**
+     * Marcar como eliminados los eventos de calendarios inactivos
+     */
+    public int cleanupOrphanedEvents() {
+        Instant now = Instant.now();
+        return runInChunks(() -> externalEventRepository.softDeleteOrphanedChunk(now, chunkSize));
+    }
+
+    /**
+     * Borrado físico de eventos eliminados fuera de la retención
+     */
+    public int purgeDeletedEvents() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(purgeRetentionDays));
+        return runInChunks(() -> externalEventRepository.purgeDeletedChunk(cutoff, chunkSize));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("runs", runs.get());
+        stats.put("totalOrphansDeleted", totalOrphansDeleted.get());
+        stats.put("totalPurged", totalPurged.get());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    /**
+     * Repetir la sentencia hasta que un bloque afecte menos filas que el límite
+     */
+    private int runInChunks(IntSupplier chunk) {
+        int total = 0;
+        while (true) {
+            Integer affected = transactionTemplate.execute(status -> chunk.getAsInt());
+            int rows = affected != null ? affected : 0;
+            total += rows;
+            if (rows < chunkSize) {
+                return total;
+            }
+        }
+    }
+}
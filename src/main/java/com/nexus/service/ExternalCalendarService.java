@@ -1,22 +1,37 @@
 package com.nexus.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nexus.dto.*;
 import com.nexus.entity.Event;
 import com.nexus.entity.ExternalCalendar;
 import com.nexus.entity.ExternalEvent;
 import com.nexus.repository.EventRepository;
 import com.nexus.repository.ExternalCalendarRepository;
+import com.nexus.repository.ExternalEventBatchRepository;
 import com.nexus.repository.ExternalEventRepository;
+import com.nexus.util.IntervalSet;
+import com.nexus.util.TransactionHooks;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +42,36 @@ public class ExternalCalendarService {
     private final ExternalCalendarRepository externalCalendarRepository;
     private final ExternalEventRepository externalEventRepository;
     private final EventRepository eventRepository;
+    private final RecurrenceService recurrenceService;
+    private final AvailabilityIndex availabilityIndex;
+    private final CalendarMerkleIndex calendarMerkleIndex;
+    private final ExternalEventBatchRepository externalEventBatchRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Tamaño de bloque para las consultas IN de la sincronización
+    private static final int SYNC_LOOKUP_CHUNK_SIZE = 1000;
+
+    // Eventos por transacción en la sincronización en streaming
+    private static final int STREAM_CHUNK_SIZE = 500;
+
+    // Separador de campos del hash (no aparece en texto de calendario)
+    private static final char HASH_FIELD_SEPARATOR = '\u001F';
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // MessageDigest no es thread-safe: una instancia reutilizable por hilo
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
 
     /**
      * RF-19: Vincular un calendario externo
@@ -46,6 +91,7 @@ public class ExternalCalendarService {
             calendar.setSyncEnabled(request.getSyncEnabled());
             calendar.setPrivacyMode(ExternalCalendar.PrivacyMode.valueOf(request.getPrivacyMode()));
             externalCalendarRepository.save(calendar);
+            TransactionHooks.afterCommit(() -> availabilityIndex.invalidate(userId));
             log.info("Calendario reactivado: {}", calendar.getId());
             return ExternalCalendarDTO.fromEntity(calendar);
         }
@@ -83,6 +129,8 @@ public class ExternalCalendarService {
         calendar.setSyncEnabled(false);
         externalCalendarRepository.save(calendar);
 
+        TransactionHooks.afterCommit(() -> availabilityIndex.invalidate(userId));
+
         log.info("Calendario desvinculado: {}", calendar.getId());
     }
 
@@ -125,76 +173,531 @@ public class ExternalCalendarService {
     }
 
     /**
-     * RF-20 & RF-21: Sincronizar eventos desde el dispositivo
+     * RF-20 & RF-21: Sincronizar eventos desde el dispositivo (modo incremental)
      */
     @Transactional
     public Map<String, Object> syncEvents(Long userId, List<SyncEventRequest> events) {
-        log.info("Sincronizando {} eventos para usuario {}", events.size(), userId);
+        return syncEvents(userId, events, Collections.emptySet());
+    }
 
-        int created = 0;
-        int updated = 0;
-        List<String> conflicts = new ArrayList<>();
+    /**
+     * RF-20 & RF-21: Sincronizar eventos desde el dispositivo
+     * Las filas existentes se cargan en bloques con IN, se comparan en memoria
+     * y los cambios se escriben con un único upsert JDBC por lotes.
+     *
+     * Los calendarios de snapshotCalendarIds se tratan como snapshot completo:
+     * los eventos guardados que no vienen en el payload se eliminaron en el
+     * dispositivo y se marcan como eliminados.
+     */
+    @Transactional
+    public Map<String, Object> syncEvents(Long userId, List<SyncEventRequest> events, Collection<Long> snapshotCalendarIds) {
+        log.info("Sincronizando {} eventos para usuario {} ({} calendarios en modo snapshot)",
+            events.size(), userId, snapshotCalendarIds.size());
 
-        for (SyncEventRequest request : events) {
-            try {
-                Optional<ExternalEvent> existing = externalEventRepository
-                    .findByExternalCalendarIdAndDeviceEventId(
-                        request.getExternalCalendarId(),
-                        request.getDeviceEventId()
-                    );
-
-                if (existing.isPresent()) {
-                    // RF-24: Detectar conflictos
-                    ExternalEvent event = existing.get();
-                    boolean hasConflict = detectConflict(event, request);
-                    
-                    if (hasConflict) {
-                        conflicts.add(String.format(
-                            "Evento '%s' fue modificado externamente",
-                            event.getTitle()
-                        ));
+        verifyCalendarOwnership(userId, snapshotCalendarIds);
+
+        SyncTally tally = new SyncTally();
+        Map<Long, Map<String, SyncEventRequest>> byCalendar = groupByCalendar(events, tally);
+
+        Set<Long> syncedCalendarIds = new HashSet<>(byCalendar.keySet());
+        syncedCalendarIds.addAll(snapshotCalendarIds);
+        lockCalendars(syncedCalendarIds);
+
+        applySyncBatch(userId, byCalendar, tally);
+
+        Map<Long, Set<String>> seenByCalendar = new HashMap<>();
+        byCalendar.forEach((calendarId, incoming) -> seenByCalendar.put(calendarId, incoming.keySet()));
+        tally.deleted = applySnapshotDeletions(userId, snapshotCalendarIds, seenByCalendar);
+
+        log.info("Sincronización completada: {} creados, {} actualizados, {} sin cambios, {} eliminados, {} conflictos, {} descartados, {} con error",
+            tally.created, tally.updated, tally.unchanged, tally.deleted, tally.conflicts.size(), tally.skipped, tally.failed);
+
+        Map<String, Object> result = tally.toResult(events.size());
+        result.put("cursors", loadSyncCursors(syncedCalendarIds));
+        return result;
+    }
+
+    /**
+     * Nodo del árbol de hashes de un calendario para reconciliar con el dispositivo
+     * El dispositivo compara la raíz y solo pide los prefijos cuyo hash difiere;
+     * al llegar a un día distinto obtiene los deviceEventId y syncHash del servidor
+     * y sube o borra únicamente esos eventos con la sincronización delta.
+     */
+    public MerkleNodeResponse getMerkleNode(Long userId, Long calendarId, String prefix) {
+        verifyCalendarOwnership(userId, List.of(calendarId));
+        return calendarMerkleIndex.describe(calendarId, prefix);
+    }
+
+    /**
+     * Sincronización delta por calendario
+     * El dispositivo envía solo los cambios desde el último cursor que recibió.
+     * Si ese cursor ya no coincide con el del servidor (otra sincronización
+     * cambió el calendario) no se aplica nada y se pide un snapshot completo.
+     * Cada calendario se bloquea durante la comparación para que dos deltas
+     * simultáneos no acepten el mismo cursor.
+     */
+    @Transactional
+    public List<CalendarDeltaResult> syncDelta(Long userId, List<CalendarDeltaRequest> deltas) {
+        log.info("Sincronización delta de {} calendarios para usuario {}", deltas.size(), userId);
+
+        // Bloquear en orden de id para evitar interbloqueos entre peticiones
+        List<CalendarDeltaRequest> ordered = new ArrayList<>(deltas);
+        ordered.sort(Comparator.comparing(CalendarDeltaRequest::getExternalCalendarId));
+
+        List<CalendarDeltaResult> results = new ArrayList<>(ordered.size());
+        for (CalendarDeltaRequest delta : ordered) {
+            Long calendarId = delta.getExternalCalendarId();
+            ExternalCalendar calendar = externalCalendarRepository.findByIdForUpdate(calendarId)
+                .filter(cal -> userId.equals(cal.getUserId()))
+                .orElseThrow(() -> new IllegalArgumentException("Calendario no encontrado para el usuario " + userId));
+
+            if (!calendar.getSyncCursor().equals(delta.getSinceCursor())) {
+                log.info("Cursor desfasado en calendario {}: dispositivo {}, servidor {}",
+                    calendarId, delta.getSinceCursor(), calendar.getSyncCursor());
+                results.add(CalendarDeltaResult.builder()
+                    .externalCalendarId(calendarId)
+                    .cursor(calendar.getSyncCursor())
+                    .resyncRequired(true)
+                    .created(0).updated(0).unchanged(0).deleted(0).skipped(0).failed(0)
+                    .build());
+                continue;
+            }
+
+            List<SyncEventRequest> upserts = delta.getUpserts() != null ? delta.getUpserts() : Collections.emptyList();
+            for (SyncEventRequest upsert : upserts) {
+                if (upsert.getExternalCalendarId() == null) {
+                    upsert.setExternalCalendarId(calendarId);
+                } else if (!upsert.getExternalCalendarId().equals(calendarId)) {
+                    throw new IllegalArgumentException("El evento " + upsert.getDeviceEventId() + " no pertenece al calendario " + calendarId);
+                }
+            }
+
+            SyncTally tally = new SyncTally();
+            applySyncBatch(userId, groupByCalendar(upserts, tally), tally);
+            tally.deleted = deleteDeviceEvents(calendarId, delta.getDeletedDeviceEventIds());
+            recordSync(List.of(calendarId), tally.deleted > 0 ? Set.of(calendarId) : Collections.emptySet());
+            if (tally.deleted > 0) {
+                TransactionHooks.afterCommit(() -> availabilityIndex.invalidate(userId));
+                TransactionHooks.afterCommit(() -> calendarMerkleIndex.invalidate(calendarId));
+            }
+
+            results.add(CalendarDeltaResult.builder()
+                .externalCalendarId(calendarId)
+                .cursor(loadSyncCursors(List.of(calendarId)).get(calendarId))
+                .resyncRequired(false)
+                .created(tally.created)
+                .updated(tally.updated)
+                .unchanged(tally.unchanged)
+                .deleted(tally.deleted)
+                .skipped(tally.skipped)
+                .failed(tally.failed)
+                .build());
+        }
+        return results;
+    }
+
+    /**
+     * Eliminar (soft delete) los eventos que el dispositivo reporta como borrados
+     */
+    private int deleteDeviceEvents(Long calendarId, List<String> deviceEventIds) {
+        if (deviceEventIds == null || deviceEventIds.isEmpty()) {
+            return 0;
+        }
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(deviceEventIds));
+        int deleted = 0;
+        for (int i = 0; i < ids.size(); i += SYNC_LOOKUP_CHUNK_SIZE) {
+            deleted += externalEventRepository.softDeleteByExternalCalendarIdAndDeviceEventIdIn(
+                calendarId, ids.subList(i, Math.min(i + SYNC_LOOKUP_CHUNK_SIZE, ids.size())));
+        }
+        return deleted;
+    }
+
+    /**
+     * Sincronización en streaming para payloads muy grandes
+     * Lee el arreglo JSON elemento a elemento y confirma cada bloque de
+     * STREAM_CHUNK_SIZE eventos en su propia transacción corta, así que la
+     * memoria no depende del tamaño del payload. Si un bloque falla, los
+     * anteriores quedan confirmados; reenviar el payload es seguro porque las
+     * filas sin cambios se detectan por hash.
+     *
+     * En modo snapshot solo se conservan los deviceEventId vistos de esos
+     * calendarios, y las eliminaciones se aplican al terminar de leer todo.
+     */
+    public Map<String, Object> syncEventsStream(Long userId, InputStream body, Collection<Long> snapshotCalendarIds) throws IOException {
+        log.info("Sincronizando eventos en streaming para usuario {} ({} calendarios en modo snapshot)",
+            userId, snapshotCalendarIds.size());
+
+        verifyCalendarOwnership(userId, snapshotCalendarIds);
+
+        SyncTally tally = new SyncTally();
+        Map<Long, Set<String>> seenByCalendar = new HashMap<>();
+        snapshotCalendarIds.forEach(calendarId -> seenByCalendar.put(calendarId, new HashSet<>()));
+        Set<Long> syncedCalendarIds = new HashSet<>(snapshotCalendarIds);
+        List<Map<String, Object>> chunks = new ArrayList<>();
+        Set<Long> incompleteSnapshots = new HashSet<>();
+        List<SyncEventRequest> buffer = new ArrayList<>(STREAM_CHUNK_SIZE);
+        int total = 0;
+        int invalid = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Se esperaba un arreglo JSON de eventos");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                SyncEventRequest request = objectMapper.readValue(parser, SyncEventRequest.class);
+                total++;
+
+                // Marcar como visto antes de validar: un registro inválido no debe
+                // hacer que el snapshot borre el evento que ya estaba guardado.
+                // Si no se sabe qué evento es, ese snapshot no se aplica.
+                if (request.getExternalCalendarId() == null) {
+                    if (!snapshotCalendarIds.isEmpty()) {
+                        incompleteSnapshots.addAll(snapshotCalendarIds);
                     }
+                } else if (seenByCalendar.containsKey(request.getExternalCalendarId())) {
+                    if (request.getDeviceEventId() != null) {
+                        seenByCalendar.get(request.getExternalCalendarId()).add(request.getDeviceEventId());
+                    } else {
+                        incompleteSnapshots.add(request.getExternalCalendarId());
+                    }
+                }
+                if (!validator.validate(request).isEmpty()) {
+                    invalid++;
+                    continue;
+                }
+                syncedCalendarIds.add(request.getExternalCalendarId());
 
-                    updateExistingEvent(event, request);
-                    // Guardar y vaciar el contexto de persistencia para evitar assertions
-                    externalEventRepository.saveAndFlush(event);
-                    updated++;
-                } else {
-                    ExternalEvent newEvent = createNewEvent(request);
-                    externalEventRepository.saveAndFlush(newEvent);
-                    created++;
+                buffer.add(request);
+                if (buffer.size() == STREAM_CHUNK_SIZE) {
+                    chunks.add(commitStreamChunk(userId, buffer, chunks.size() + 1, tally));
+                    buffer.clear();
                 }
-            } catch (Exception e) {
-                log.error("Error sincronizando evento: {}", e.getMessage());
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Se esperaba un arreglo JSON de eventos");
             }
         }
+        if (!buffer.isEmpty()) {
+            chunks.add(commitStreamChunk(userId, buffer, chunks.size() + 1, tally));
+        }
 
-        // Actualizar última sincronización fuera del bucle y con flush
-        if (!events.isEmpty()) {
-            Long calendarId = events.get(0).getExternalCalendarId();
-            externalCalendarRepository.findById(calendarId).ifPresent(cal -> {
-                cal.setLastSync(Instant.now());
-                externalCalendarRepository.saveAndFlush(cal);
+        List<Long> completeSnapshots = snapshotCalendarIds.stream()
+            .filter(id -> !incompleteSnapshots.contains(id))
+            .collect(Collectors.toList());
+        if (!incompleteSnapshots.isEmpty()) {
+            log.warn("Snapshot sin aplicar en los calendarios {}: registros inválidos sin identificar", incompleteSnapshots);
+        }
+        if (!completeSnapshots.isEmpty()) {
+            tally.deleted = transactionTemplate.execute(status -> {
+                lockCalendars(completeSnapshots);
+                return applySnapshotDeletions(userId, completeSnapshots, seenByCalendar);
             });
         }
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("created", created);
-        result.put("updated", updated);
-        result.put("conflicts", conflicts);
-        result.put("total", events.size());
-
-        log.info("Sincronización completada: {} creados, {} actualizados, {} conflictos",
-            created, updated, conflicts.size());
+        log.info("Sincronización en streaming completada: {} eventos en {} bloques, {} creados, {} actualizados, {} sin cambios, {} eliminados, {} inválidos",
+            total, chunks.size(), tally.created, tally.updated, tally.unchanged, tally.deleted, invalid);
 
+        Map<String, Object> result = tally.toResult(total);
+        result.put("invalid", invalid);
+        result.put("snapshotSkipped", incompleteSnapshots);
+        result.put("chunks", chunks);
+        result.put("cursors", loadSyncCursors(syncedCalendarIds));
         return result;
     }
 
     /**
-     * RF-24: Detectar si un evento fue modificado externamente
-     * NOTA: Por ahora desactivado. Solo se debe activar para eventos que se crearon en la app
-     * y se enviaron al calendario externo (funcionalidad aún no implementada).
+     * Confirmar un bloque del streaming en su propia transacción
+     */
+    private Map<String, Object> commitStreamChunk(Long userId, List<SyncEventRequest> buffer, int chunkNumber, SyncTally tally) {
+        SyncTally chunkTally = new SyncTally();
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Map<String, SyncEventRequest>> byCalendar = groupByCalendar(buffer, chunkTally);
+            lockCalendars(byCalendar.keySet());
+            applySyncBatch(userId, byCalendar, chunkTally);
+        });
+        // Con OSIV el EntityManager vive toda la petición: soltar las filas ya comparadas
+        entityManager.clear();
+        tally.add(chunkTally);
+
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("chunk", chunkNumber);
+        progress.put("events", buffer.size());
+        progress.put("created", chunkTally.created);
+        progress.put("updated", chunkTally.updated);
+        progress.put("unchanged", chunkTally.unchanged);
+        progress.put("failed", chunkTally.failed);
+
+        log.debug("Bloque {} sincronizado: {} eventos, {} creados, {} actualizados, {} sin cambios",
+            chunkNumber, buffer.size(), chunkTally.created, chunkTally.updated, chunkTally.unchanged);
+        return progress;
+    }
+
+    /**
+     * Bloquear las filas de los calendarios hasta el fin de la transacción
+     * Dos sincronizaciones del mismo calendario (dos dispositivos, reintentos)
+     * se ejecutan una detrás de otra: la segunda lee lo que confirmó la primera
+     * y sus eventos repetidos salen como sin cambios por el hash.
+     * Debe ejecutarse dentro de una transacción
+     */
+    private void lockCalendars(Collection<Long> calendarIds) {
+        if (!calendarIds.isEmpty()) {
+            externalCalendarRepository.lockByIdIn(calendarIds);
+        }
+    }
+
+    /**
+     * Agrupar por calendario; si un evento viene repetido gana la última versión
+     * Los eventos sin externalCalendarId o deviceEventId se cuentan como descartados
+     */
+    private Map<Long, Map<String, SyncEventRequest>> groupByCalendar(List<SyncEventRequest> events, SyncTally tally) {
+        Map<Long, Map<String, SyncEventRequest>> byCalendar = new LinkedHashMap<>();
+        for (SyncEventRequest request : events) {
+            if (request.getExternalCalendarId() == null || request.getDeviceEventId() == null) {
+                log.error("Error sincronizando evento: faltan externalCalendarId o deviceEventId");
+                tally.skipped++;
+                continue;
+            }
+            byCalendar
+                .computeIfAbsent(request.getExternalCalendarId(), id -> new LinkedHashMap<>())
+                .put(request.getDeviceEventId(), request);
+        }
+        return byCalendar;
+    }
+
+    /**
+     * Comparar un lote con lo guardado y escribir creados/actualizados
+     * Un evento que falla (al prepararlo o al escribirlo) se cuenta como
+     * fallido sin afectar al resto del lote.
+     * Debe ejecutarse dentro de una transacción
+     */
+    private void applySyncBatch(Long userId, Map<Long, Map<String, SyncEventRequest>> byCalendar, SyncTally tally) {
+        List<ExternalEvent> pendingWrites = new ArrayList<>();
+        Set<ExternalEvent> pendingCreates = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Long> changedCalendarIds = new HashSet<>();
+        Map<Long, Map<String, CalendarMerkleIndex.Leaf>> leafChanges = new HashMap<>();
+
+        for (Map.Entry<Long, Map<String, SyncEventRequest>> entry : byCalendar.entrySet()) {
+            Long calendarId = entry.getKey();
+            Map<String, SyncEventRequest> incoming = entry.getValue();
+            Map<String, ExternalEvent> existingByDeviceId = loadExistingEvents(calendarId, incoming.keySet());
+
+            for (SyncEventRequest request : incoming.values()) {
+                ExternalEvent existing = existingByDeviceId.get(request.getDeviceEventId());
+
+                String syncHash;
+                ExternalEvent prepared;
+                try {
+                    syncHash = generateHash(request);
+                    prepared = createNewEvent(request, syncHash);
+                } catch (Exception e) {
+                    log.error("Error sincronizando evento {}: {}", request.getDeviceEventId(), e.getMessage());
+                    tally.failed++;
+                    continue;
+                }
+
+                if (existing == null) {
+                    pendingWrites.add(prepared);
+                    pendingCreates.add(prepared);
+                    changedCalendarIds.add(calendarId);
+                    leafChanges.computeIfAbsent(calendarId, id -> new HashMap<>())
+                        .put(request.getDeviceEventId(), new CalendarMerkleIndex.Leaf(syncHash, request.getStartDatetime()));
+                    tally.created++;
+                    continue;
+                }
+
+                // RF-24: Detectar conflictos
+                if (detectConflict(existing, request)) {
+                    tally.conflicts.add(String.format(
+                        "Evento '%s' fue modificado externamente",
+                        existing.getTitle()
+                    ));
+                }
+
+                // El hash cubre todos los campos sincronizados: si coincide no se escribe nada
+                if (syncHash.equals(existing.getSyncHash())) {
+                    tally.unchanged++;
+                    continue;
+                }
+
+                pendingWrites.add(prepared);
+                changedCalendarIds.add(calendarId);
+                leafChanges.computeIfAbsent(calendarId, id -> new HashMap<>())
+                    .put(request.getDeviceEventId(), new CalendarMerkleIndex.Leaf(syncHash, request.getStartDatetime()));
+                tally.updated++;
+            }
+        }
+
+        for (ExternalEvent failed : externalEventBatchRepository.upsert(pendingWrites)) {
+            if (pendingCreates.contains(failed)) {
+                tally.created--;
+            } else {
+                tally.updated--;
+            }
+            tally.failed++;
+            // El árbol de hashes solo debe reflejar lo que quedó guardado
+            Map<String, CalendarMerkleIndex.Leaf> leaves = leafChanges.get(failed.getExternalCalendarId());
+            if (leaves != null) {
+                leaves.remove(failed.getDeviceEventId());
+            }
+        }
+
+        // Actualizar última sincronización y cursor de cada calendario del lote
+        recordSync(byCalendar.keySet(), changedCalendarIds);
+
+        // Los cambios pueden mover o acortar eventos: reconstruir el índice tras el commit
+        if (!pendingWrites.isEmpty()) {
+            TransactionHooks.afterCommit(() -> availabilityIndex.invalidate(userId));
+        }
+        leafChanges.forEach((calendarId, leaves) ->
+            TransactionHooks.afterCommit(() -> calendarMerkleIndex.apply(calendarId, leaves)));
+    }
+
+    /**
+     * Aplicar las eliminaciones de los calendarios en modo snapshot
+     * Debe ejecutarse dentro de una transacción
+     */
+    private int applySnapshotDeletions(Long userId, Collection<Long> snapshotCalendarIds, Map<Long, Set<String>> seenByCalendar) {
+        int deleted = 0;
+        Set<Long> changedCalendarIds = new HashSet<>();
+        for (Long calendarId : snapshotCalendarIds) {
+            int calendarDeleted = deleteMissingEvents(calendarId, seenByCalendar.getOrDefault(calendarId, Collections.emptySet()));
+            if (calendarDeleted > 0) {
+                changedCalendarIds.add(calendarId);
+                TransactionHooks.afterCommit(() -> calendarMerkleIndex.invalidate(calendarId));
+            }
+            deleted += calendarDeleted;
+        }
+        recordSync(snapshotCalendarIds, changedCalendarIds);
+
+        if (deleted > 0) {
+            TransactionHooks.afterCommit(() -> availabilityIndex.invalidate(userId));
+        }
+        return deleted;
+    }
+
+    /**
+     * Estampar lastSync en todos los calendarios sincronizados y avanzar el
+     * cursor de los que cambiaron, con UPDATE atómicos (sin leer y escribir la entidad)
+     */
+    private void recordSync(Collection<Long> syncedCalendarIds, Set<Long> changedCalendarIds) {
+        Instant syncedAt = Instant.now();
+        if (!changedCalendarIds.isEmpty()) {
+            externalCalendarRepository.advanceSyncCursor(changedCalendarIds, syncedAt);
+        }
+        List<Long> untouched = syncedCalendarIds.stream()
+            .filter(id -> !changedCalendarIds.contains(id))
+            .collect(Collectors.toList());
+        if (!untouched.isEmpty()) {
+            externalCalendarRepository.touchLastSync(untouched, syncedAt);
+        }
+    }
+
+    /**
+     * Cursor actual de cada calendario, para devolverlo al dispositivo
+     */
+    private Map<Long, Long> loadSyncCursors(Collection<Long> calendarIds) {
+        Map<Long, Long> cursors = new HashMap<>();
+        if (calendarIds.isEmpty()) {
+            return cursors;
+        }
+        for (Object[] row : externalCalendarRepository.findSyncCursorsByIdIn(calendarIds)) {
+            cursors.put((Long) row[0], (Long) row[1]);
+        }
+        return cursors;
+    }
+
+    /**
+     * Contadores acumulados de una sincronización
+     */
+    private static final class SyncTally {
+        private int created;
+        private int updated;
+        private int unchanged;
+        private int deleted;
+        // Sin externalCalendarId o deviceEventId
+        private int skipped;
+        // No se pudieron preparar o escribir
+        private int failed;
+        private final List<String> conflicts = new ArrayList<>();
+
+        private void add(SyncTally other) {
+            created += other.created;
+            updated += other.updated;
+            unchanged += other.unchanged;
+            deleted += other.deleted;
+            skipped += other.skipped;
+            failed += other.failed;
+            conflicts.addAll(other.conflicts);
+        }
+
+        private Map<String, Object> toResult(int total) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("created", created);
+            result.put("updated", updated);
+            result.put("unchanged", unchanged);
+            result.put("deleted", deleted);
+            result.put("skipped", skipped);
+            result.put("failed", failed);
+            result.put("conflicts", conflicts);
+            result.put("total", total);
+            return result;
+        }
+    }
+
+    /**
+     * Los calendarios en modo snapshot deben pertenecer al usuario que sincroniza
+     */
+    private void verifyCalendarOwnership(Long userId, Collection<Long> calendarIds) {
+        if (calendarIds.isEmpty()) {
+            return;
+        }
+        List<ExternalCalendar> calendars = externalCalendarRepository.findAllById(calendarIds);
+        boolean allOwned = calendars.size() == new HashSet<>(calendarIds).size()
+            && calendars.stream().allMatch(cal -> userId.equals(cal.getUserId()));
+        if (!allOwned) {
+            throw new IllegalArgumentException("Calendario no encontrado para el usuario " + userId);
+        }
+    }
+
+    /**
+     * Snapshot completo: marcar como eliminados los eventos guardados del calendario
+     * cuyo deviceEventId no viene en el payload, con un UPDATE por bloque de ids
+     */
+    private int deleteMissingEvents(Long calendarId, Set<String> incomingDeviceEventIds) {
+        List<Long> missingIds = new ArrayList<>();
+        for (Object[] row : externalEventRepository.findLiveDeviceEventIdsByCalendarId(calendarId)) {
+            if (!incomingDeviceEventIds.contains((String) row[1])) {
+                missingIds.add((Long) row[0]);
+            }
+        }
+
+        int deleted = 0;
+        for (int i = 0; i < missingIds.size(); i += SYNC_LOOKUP_CHUNK_SIZE) {
+            deleted += externalEventRepository.softDeleteByIdIn(
+                missingIds.subList(i, Math.min(i + SYNC_LOOKUP_CHUNK_SIZE, missingIds.size())));
+        }
+        if (deleted > 0) {
+            log.info("Snapshot del calendario {}: {} eventos eliminados en el dispositivo", calendarId, deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Cargar las filas vigentes de un calendario para los deviceEventId dados,
+     * en bloques para no exceder el tamaño razonable de un IN
      */
+    private Map<String, ExternalEvent> loadExistingEvents(Long calendarId, Collection<String> deviceEventIds) {
+        List<String> ids = new ArrayList<>(deviceEventIds);
+        Map<String, ExternalEvent> existing = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i += SYNC_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(i, Math.min(i + SYNC_LOOKUP_CHUNK_SIZE, ids.size()));
+            for (ExternalEvent event : externalEventRepository.findByExternalCalendarIdAndDeviceEventIdIn(calendarId, chunk)) {
+                existing.put(event.getDeviceEventId(), event);
+            }
+        }
+        return existing;
+    }
+
     private boolean detectConflict(ExternalEvent existing, SyncEventRequest incoming) {
         // TODO: Implementar detección de conflictos solo para eventos originados en la app
         // Por ahora, todos los eventos externos no generan conflictos
@@ -216,31 +719,15 @@ public class ExternalCalendarService {
         */
     }
 
-    private void updateExistingEvent(ExternalEvent event, SyncEventRequest request) {
-        event.setTitle(request.getTitle());
-        event.setStartDatetime(request.getStartDatetime());
-        event.setEndDatetime(request.getEndDatetime());
-        event.setLocation(request.getLocation());
-        event.setDescription(request.getDescription());
-        event.setIsAllDay(request.getIsAllDay());
-        event.setRecurrenceRule(request.getRecurrenceRule());
-        event.setRruleDtstartUtc(request.getRruleDtstartUtc());
-        event.setRruleUntilUtc(request.getRruleUntilUtc());
-        event.setRruleCount(request.getRruleCount());
-        event.setIsExternal(true);
-        event.setLastDeviceUpdate(request.getLastDeviceUpdate());
-        event.setSyncHash(generateHash(request));
-    }
-
-    private ExternalEvent createNewEvent(SyncEventRequest request) {
+    private ExternalEvent createNewEvent(SyncEventRequest request, String syncHash) {
         ExternalEvent event = new ExternalEvent();
         event.setExternalCalendarId(request.getExternalCalendarId());
         event.setDeviceEventId(request.getDeviceEventId());
         event.setTitle(request.getTitle());
         event.setStartDatetime(request.getStartDatetime());
         event.setEndDatetime(request.getEndDatetime());
-        event.setStartTimezone("UTC");
-        event.setEndTimezone("UTC");
+        event.setStartTimezone(timezoneOrUtc(request.getStartTimezone()));
+        event.setEndTimezone(timezoneOrUtc(request.getEndTimezone()));
         event.setLocation(request.getLocation());
         event.setDescription(request.getDescription());
         event.setIsAllDay(request.getIsAllDay());
@@ -250,7 +737,8 @@ public class ExternalCalendarService {
         event.setRruleCount(request.getRruleCount());
         event.setIsExternal(true);
         event.setLastDeviceUpdate(request.getLastDeviceUpdate());
-        event.setSyncHash(generateHash(request));
+        event.setSyncHash(syncHash);
+        event.setContentHash(generateContentHash(event));
         event.setVisibility(ExternalEvent.Visibility.DEFAULT);
         event.setStatus(ExternalEvent.EventStatus.CONFIRMED);
         return event;
@@ -258,22 +746,122 @@ public class ExternalCalendarService {
 
     /**
      * Generar hash para detectar cambios
+     * Cubre todos los campos que escribe la sincronización; los instantes se
+     * toman en milisegundos, que es la precisión con la que se guardan
      */
     private String generateHash(SyncEventRequest request) {
-        try {
-            String data = String.format("%s|%s|%s|%s",
-                request.getTitle(),
-                request.getStartDatetime(),
-                request.getEndDatetime(),
-                request.getLocation() != null ? request.getLocation() : ""
-            );
-            
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(data.getBytes());
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (NoSuchAlgorithmException e) {
+        StringBuilder data = new StringBuilder(256);
+        appendHashField(data, request.getTitle());
+        appendHashField(data, request.getStartDatetime());
+        appendHashField(data, request.getEndDatetime());
+        appendHashField(data, request.getLocation());
+        appendHashField(data, request.getDescription());
+        data.append(Boolean.TRUE.equals(request.getIsAllDay()) ? '1' : '0').append(HASH_FIELD_SEPARATOR);
+        appendHashField(data, request.getRecurrenceRule());
+        appendHashField(data, request.getRruleDtstartUtc());
+        appendHashField(data, request.getRruleUntilUtc());
+        if (request.getRruleCount() != null) {
+            data.append(request.getRruleCount().intValue());
+        }
+        // Solo si el dispositivo las envía, para no cambiar el hash de las filas ya guardadas
+        if (request.getStartTimezone() != null || request.getEndTimezone() != null) {
+            data.append(HASH_FIELD_SEPARATOR);
+            appendHashField(data, request.getStartTimezone());
+            appendHashField(data, request.getEndTimezone());
+        }
+
+        MessageDigest md = SHA_256.get();
+        byte[] hash = md.digest(data.toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    /**
+     * Hash de contenido: el mismo evento visto desde dos calendarios vinculados
+     * (la cuenta de Google y su copia local en el teléfono) produce el mismo valor
+     * aunque cambien el deviceEventId, la descripción o la ubicación.
+     * Se normaliza el título (NFC, espacios, minúsculas) y las horas se truncan al
+     * minuto; la regla RRULE se incluye para no fusionar series distintas que
+     * empiezan igual.
+     */
+    private static String generateContentHash(ExternalEvent event) {
+        StringBuilder data = new StringBuilder(128);
+        appendHashField(data, normalizeTitle(event.getTitle()));
+        appendHashField(data, truncateToMinute(event.getStartDatetime()));
+        appendHashField(data, truncateToMinute(event.getEndDatetime()));
+        data.append(Boolean.TRUE.equals(event.getIsAllDay()) ? '1' : '0').append(HASH_FIELD_SEPARATOR);
+        if (event.getRecurrenceRule() != null) {
+            data.append(event.getRecurrenceRule().trim().toUpperCase(Locale.ROOT));
+        }
+
+        MessageDigest md = SHA_256.get();
+        byte[] hash = md.digest(data.toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    private static String normalizeTitle(String title) {
+        if (title == null) {
             return null;
         }
+        String normalized = Normalizer.normalize(title, Normalizer.Form.NFC);
+        return WHITESPACE.matcher(normalized.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static Instant truncateToMinute(Instant value) {
+        return value != null ? value.truncatedTo(ChronoUnit.MINUTES) : null;
+    }
+
+    /**
+     * Quitar los duplicados entre calendarios de un mismo usuario; las filas
+     * anteriores a content_hash lo calculan al vuelo. De cada grupo se conserva
+     * la copia del calendario más restrictivo (BUSY_ONLY antes que
+     * FULL_DETAILS) y, a igualdad, la del calendario de menor id, para que lo
+     * expuesto no dependa del orden de la consulta.
+     */
+    private List<ExternalEvent> dedupeByContent(List<ExternalEvent> events, Map<Long, ExternalCalendar> calendarsById) {
+        Comparator<ExternalEvent> preference = Comparator
+            .comparingInt((ExternalEvent event) -> privacyRank(calendarsById.get(event.getExternalCalendarId())))
+            .thenComparing(ExternalEvent::getExternalCalendarId)
+            .thenComparing(ExternalEvent::getId);
+
+        Map<String, ExternalEvent> survivors = new LinkedHashMap<>(events.size() * 2);
+        for (ExternalEvent event : events) {
+            String contentHash = event.getContentHash() != null ? event.getContentHash() : generateContentHash(event);
+            survivors.merge(contentHash, event, (current, candidate) ->
+                preference.compare(candidate, current) < 0 ? candidate : current);
+        }
+        List<ExternalEvent> unique = new ArrayList<>(survivors.values());
+        if (unique.size() < events.size()) {
+            log.debug("Eventos externos duplicados entre calendarios: {} de {}", events.size() - unique.size(), events.size());
+        }
+        return unique;
+    }
+
+    /**
+     * 0 = más restrictivo; un calendario desconocido se trata como BUSY_ONLY
+     */
+    private static int privacyRank(ExternalCalendar calendar) {
+        if (calendar == null || calendar.getPrivacyMode() != ExternalCalendar.PrivacyMode.FULL_DETAILS) {
+            return 0;
+        }
+        return 1;
+    }
+
+    private static String timezoneOrUtc(String tzid) {
+        return tzid == null || tzid.isBlank() ? "UTC" : tzid.trim();
+    }
+
+    private static void appendHashField(StringBuilder data, String value) {
+        if (value != null) {
+            data.append(value);
+        }
+        data.append(HASH_FIELD_SEPARATOR);
+    }
+
+    private static void appendHashField(StringBuilder data, Instant value) {
+        if (value != null) {
+            data.append(value.toEpochMilli());
+        }
+        data.append(HASH_FIELD_SEPARATOR);
     }
 
     /**
@@ -319,22 +907,35 @@ public class ExternalCalendarService {
             .map(ExternalCalendar::getId)
             .collect(Collectors.toList());
 
-        // Obtener eventos en el rango de fechas
-        List<ExternalEvent> events = externalEventRepository
-            .findEventsByCalendarsAndDateRange(calendarIds, startDate, endDate);
-
         // Aplicar privacidad según configuración del calendario
         Map<Long, ExternalCalendar> calendarMap = calendars.stream()
             .collect(Collectors.toMap(ExternalCalendar::getId, cal -> cal));
 
-        return events.stream()
-            .map(event -> {
+        // Obtener eventos en el rango de fechas (las series RRULE se expanden a sus instancias)
+        // sin las copias del mismo evento en otros calendarios vinculados
+        List<ExternalEvent> events = dedupeByContent(externalEventRepository
+            .findEventsByCalendarsAndDateRange(calendarIds, startDate, endDate), calendarMap);
+
+        return recurrenceService.expandExternal(events, startDate, endDate).stream()
+            .map(occurrence -> {
+                ExternalEvent event = occurrence.getEvent();
                 ExternalCalendar calendar = calendarMap.get(event.getExternalCalendarId());
-                return ExternalEventDTO.fromEntityWithPrivacy(
+                ExternalEventDTO dto = ExternalEventDTO.fromEntityWithPrivacy(
                     event,
                     ownerId,
                     calendar != null ? calendar.getPrivacyMode() : ExternalCalendar.PrivacyMode.BUSY_ONLY
                 );
+                if (occurrence.isUnexpanded()) {
+                    dto.setRecurrenceUnexpanded(true);
+                } else if (event.getRecurrenceRule() != null && !event.getRecurrenceRule().isBlank()) {
+                    dto.setStartDatetime(occurrence.getStart());
+                    dto.setEndDatetime(occurrence.getEnd());
+                    dto.setIsOccurrence(true);
+                    if (calendar != null && calendar.getPrivacyMode() == ExternalCalendar.PrivacyMode.FULL_DETAILS) {
+                        dto.setTitle(occurrence.getTitle());
+                    }
+                }
+                return dto;
             })
             .collect(Collectors.toList());
     }
@@ -351,59 +952,8 @@ public class ExternalCalendarService {
         log.info("Buscando espacios libres para usuario {} entre {} y {}", 
             userId, startDate, endDate);
 
-        // Obtener todos los eventos del usuario (internos + externos)
-        List<Instant[]> busySlots = new ArrayList<>();
-
-        // Eventos internos
-        List<Event> internalEvents = eventRepository
-            .findByCreatorIdAndStartDateTimeBetween(userId, startDate, endDate);
-        internalEvents.forEach(event -> 
-            busySlots.add(new Instant[]{event.getStartDateTime(), event.getEndDateTime()})
-        );
-
-        // Eventos externos
-        List<ExternalCalendar> calendars = externalCalendarRepository
-            .findByUserIdAndIsActiveTrue(userId);
-        if (!calendars.isEmpty()) {
-            List<Long> calendarIds = calendars.stream()
-                .map(ExternalCalendar::getId)
-                .collect(Collectors.toList());
-            
-            List<ExternalEvent> externalEvents = externalEventRepository
-                .findEventsByCalendarsAndDateRange(calendarIds, startDate, endDate);
-            externalEvents.forEach(event ->
-                busySlots.add(new Instant[]{event.getStartDatetime(), event.getEndDatetime()})
-            );
-        }
-
-        // Ordenar slots ocupados
-        busySlots.sort(Comparator.comparing(slot -> slot[0]));
-
-        // Encontrar huecos libres
-        List<AvailabilitySlot> freeSlots = new ArrayList<>();
-        Instant currentTime = startDate;
-
-        for (Instant[] busySlot : busySlots) {
-            Instant busyStart = busySlot[0];
-            Instant busyEnd = busySlot[1];
-
-            // Si hay un gap antes de este evento
-            long gapMinutes = ChronoUnit.MINUTES.between(currentTime, busyStart);
-            if (gapMinutes >= minDurationMinutes) {
-                freeSlots.add(new AvailabilitySlot(currentTime, busyStart));
-            }
-
-            // Avanzar el tiempo actual
-            if (busyEnd.isAfter(currentTime)) {
-                currentTime = busyEnd;
-            }
-        }
-
-        // Agregar el último slot libre
-        long finalGapMinutes = ChronoUnit.MINUTES.between(currentTime, endDate);
-        if (finalGapMinutes >= minDurationMinutes) {
-            freeSlots.add(new AvailabilitySlot(currentTime, endDate));
-        }
+        List<AvailabilitySlot> freeSlots = findCommonFreeSlots(
+            Collections.singletonList(userId), startDate, endDate, minDurationMinutes);
 
         log.info("Encontrados {} espacios libres", freeSlots.size());
         return freeSlots;
@@ -421,46 +971,82 @@ public class ExternalCalendarService {
     ) {
         log.info("Buscando disponibilidad mutua entre usuarios {} y {}", user1Id, user2Id);
 
-        // Obtener espacios libres de cada usuario
-        List<AvailabilitySlot> user1Free = findFreeSlots(user1Id, startDate, endDate, minDurationMinutes);
-        List<AvailabilitySlot> user2Free = findFreeSlots(user2Id, startDate, endDate, minDurationMinutes);
+        List<AvailabilitySlot> mutualSlots = findCommonFreeSlots(
+            Arrays.asList(user1Id, user2Id), startDate, endDate, minDurationMinutes);
 
-        // Encontrar intersecciones
-        List<AvailabilitySlot> mutualSlots = new ArrayList<>();
+        log.info("Encontrados {} espacios mutuos disponibles", mutualSlots.size());
+        return mutualSlots;
+    }
 
-        for (AvailabilitySlot slot1 : user1Free) {
-            for (AvailabilitySlot slot2 : user2Free) {
-                Instant overlapStart = slot1.getStart().isAfter(slot2.getStart()) 
-                    ? slot1.getStart() : slot2.getStart();
-                Instant overlapEnd = slot1.getEnd().isBefore(slot2.getEnd()) 
-                    ? slot1.getEnd() : slot2.getEnd();
+    /**
+     * Cruce de disponibilidad entre N usuarios
+     * El tiempo libre común es el complemento de la unión de todos los intervalos
+     * ocupados, así que basta un solo barrido ordenado sin cruzar listas de huecos
+     */
+    public List<AvailabilitySlot> findCommonFreeSlots(
+        Collection<Long> userIds,
+        Instant startDate,
+        Instant endDate,
+        Integer minDurationMinutes
+    ) {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos un usuario");
+        }
 
-                long overlapMinutes = ChronoUnit.MINUTES.between(overlapStart, overlapEnd);
-                
-                if (overlapMinutes >= minDurationMinutes) {
-                    mutualSlots.add(new AvailabilitySlot(overlapStart, overlapEnd));
-                }
-            }
+        long from = startDate.toEpochMilli();
+        long to = endDate.toEpochMilli();
+        long minMillis = minDurationMinutes == null ? 0L : minDurationMinutes * 60_000L;
+
+        // Dentro de la ventana del índice se responde desde los bitmaps en memoria;
+        // fuera de ella se calcula de forma exacta contra la base de datos
+        long[] free = availabilityIndex.findCommonFree(userIds, from, to, (userId, windowStart, windowEnd) ->
+            collectBusyIntervals(Collections.singletonList(userId), windowStart, windowEnd));
+        if (free == null) {
+            long[] busy = collectBusyIntervals(userIds, startDate, endDate);
+            free = IntervalSet.complement(busy, from, to);
         }
+        free = IntervalSet.withMinDuration(free, minMillis);
 
-        log.info("Encontrados {} espacios mutuos disponibles", mutualSlots.size());
-        return mutualSlots;
+        List<AvailabilitySlot> slots = new ArrayList<>(free.length / 2);
+        for (int i = 0; i < free.length; i += 2) {
+            slots.add(new AvailabilitySlot(Instant.ofEpochMilli(free[i]), Instant.ofEpochMilli(free[i + 1])));
+        }
+        return slots;
     }
 
     /**
-     * Eliminar eventos huérfanos (cuyos calendarios fueron desvinculados)
+     * Unión normalizada de los intervalos ocupados (internos + externos) de los usuarios
+     * Una consulta por tipo de evento para todo el grupo, en lugar de una por usuario
      */
-    @Transactional
-    public void cleanupOrphanedEvents() {
-        List<ExternalCalendar> inactiveCalendars = externalCalendarRepository
-            .findAll()
-            .stream()
-            .filter(cal -> !cal.getIsActive())
-            .collect(Collectors.toList());
+    private long[] collectBusyIntervals(Collection<Long> userIds, Instant startDate, Instant endDate) {
+        IntervalSet.Builder busy = new IntervalSet.Builder();
 
-        for (ExternalCalendar calendar : inactiveCalendars) {
-            externalEventRepository.softDeleteByExternalCalendarId(calendar.getId());
+        // Eventos internos (las series recurrentes se expanden a sus ocurrencias)
+        List<Event> internalEvents = eventRepository
+            .findBusyCandidatesByCreatorIdIn(userIds, startDate, endDate);
+        recurrenceService.expand(internalEvents, startDate, endDate).forEach(occurrence ->
+            busy.add(occurrence.getStart().toEpochMilli(), occurrence.getEnd().toEpochMilli())
+        );
+
+        // Eventos externos
+        List<ExternalCalendar> calendars = externalCalendarRepository
+            .findByUserIdInAndIsActiveTrue(userIds);
+        if (!calendars.isEmpty()) {
+            List<Long> calendarIds = calendars.stream()
+                .map(ExternalCalendar::getId)
+                .collect(Collectors.toList());
+            
+            // Un evento repetido en varios calendarios cuenta una sola vez
+            Map<Long, ExternalCalendar> calendarMap = calendars.stream()
+                .collect(Collectors.toMap(ExternalCalendar::getId, cal -> cal));
+            List<ExternalEvent> externalEvents = dedupeByContent(externalEventRepository
+                .findEventsByCalendarsAndDateRange(calendarIds, startDate, endDate), calendarMap);
+            recurrenceService.expandExternal(externalEvents, startDate, endDate).forEach(occurrence ->
+                busy.add(occurrence.getStart().toEpochMilli(), occurrence.getEnd().toEpochMilli())
+            );
         }
+
+        return busy.union();
     }
 
     /**
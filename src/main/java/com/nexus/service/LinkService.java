@@ -3,6 +3,7 @@ package com.nexus.service;
 import com.nexus.controller.LinkController;
 import com.nexus.dto.LinkCodeResponse;
 import com.nexus.dto.LinkStatusResponse;
+import com.nexus.dto.PushMessage;
 import com.nexus.entity.Link;
 import com.nexus.entity.LinkCode;
 import com.nexus.entity.User;
@@ -12,6 +13,7 @@ import com.nexus.repository.LinkCodeRepository;
 import com.nexus.repository.LinkRepository;
 import com.nexus.repository.UserRepository;
 import com.nexus.repository.EventRepository;
+import com.nexus.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -32,8 +34,12 @@ public class LinkService {
     private final LinkRepository linkRepository;
     private final LinkCodeRepository linkCodeRepository;
     private final UserRepository userRepository;
-    private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
     private final EventRepository eventRepository;
+    private final ReminderDispatcher reminderDispatcher;
+    private final PendingApprovalCounters pendingApprovalCounters;
+    private final ResourceVersions resourceVersions;
+    private final AvailabilityIndex availabilityIndex;
     
     private static final int CODE_LENGTH = 6;
     private static final int CODE_VALIDITY_MINUTES = 15; // RN-09
@@ -145,6 +151,7 @@ public class LinkService {
                 .build();
         
         linkRepository.save(link);
+        resourceVersions.bumpLinkMembers(link);
         
         // Marcar el código como usado
         linkCode.setIsUsed(true);
@@ -161,7 +168,7 @@ public class LinkService {
         if (codeGenerator.getFcmToken() != null && !codeGenerator.getFcmToken().isEmpty()) {
             String partnerName = user.getDisplayName() != null ? user.getDisplayName() : user.getNickname();
             log.info("💌 Enviando notificación con nombre de pareja: {}", partnerName);
-            notificationService.sendLinkEstablishedNotification(codeGenerator.getFcmToken(), partnerName);
+            notificationOutboxService.enqueueLinkEstablished(codeGenerator.getFcmToken(), partnerName);
         } else {
             log.warn("⚠️ Usuario ID: {} no tiene token FCM registrado. No se puede enviar notificación.", codeGenerator.getId());
         }
@@ -280,6 +287,7 @@ public class LinkService {
         }
         
         Link link = activeLinkOpt.get();
+        resourceVersions.bumpLinkMembers(link);
         
         // Identificar al partner (el otro usuario del vínculo)
         User partner = link.getInitiatorUser().getId().equals(userId) 
@@ -302,6 +310,18 @@ public class LinkService {
             if (!events.isEmpty()) {
                 log.info("🗑️ Eliminando {} eventos del vínculo", events.size());
                 eventRepository.deleteAll(events);
+                events.forEach(event -> {
+                    pendingApprovalCounters.transition(PendingApprovalCounters.approverOf(event), null);
+                    Long eventId = event.getId();
+                    TransactionHooks.afterCommit(() -> reminderDispatcher.cancel(eventId));
+                });
+                // Los eventos borrados dejan de ocupar tiempo de sus creadores (miembros del vínculo)
+                Long initiatorId = link.getInitiatorUser().getId();
+                Long partnerId = link.getPartnerUser().getId();
+                TransactionHooks.afterCommit(() -> {
+                    availabilityIndex.invalidate(initiatorId);
+                    availabilityIndex.invalidate(partnerId);
+                });
                 log.info("✅ Eventos eliminados");
             }
             
@@ -314,12 +334,12 @@ public class LinkService {
                 notificationData.put("type", "LINK_DELETED");
                 notificationData.put("partnerName", user.getDisplayName());
                 
-                notificationService.sendNotification(
-                        partnerPushToken,
-                        "Vínculo eliminado",
-                        user.getDisplayName() + " ha terminado la conexión contigo",
-                        notificationData
-                );
+                notificationOutboxService.enqueuePush(PushMessage.builder()
+                        .to(partnerPushToken)
+                        .title("Vínculo eliminado")
+                        .body(user.getDisplayName() + " ha terminado la conexión contigo")
+                        .data(notificationData)
+                        .build());
                 notificationSent = true;
             } else {
                 log.warn("⚠️ No se pudo enviar notificación: Partner no tiene Push Token");
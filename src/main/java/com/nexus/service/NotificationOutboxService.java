@@ -0,0 +1,276 @@
+package com.nexus.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexus.dto.PushMessage;
+import com.nexus.entity.NotificationOutbox;
+import com.nexus.entity.NotificationOutbox.NotificationType;
+import com.nexus.repository.NotificationOutboxRepository;
+import com.nexus.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outbox de notificaciones
+ *
+ * Los servicios encolan la notificación en la misma transacción que el cambio
+ * (evento creado, aprobado, vínculo establecido...) en lugar de llamar al
+ * proveedor de push dentro de ella. Tras el commit se despierta un relay en
+ * un hilo propio que reclama los pendientes con FOR UPDATE SKIP LOCKED, los
+ * entrega en lotes fuera de la transacción y reintenta los fallidos con
+ * espera exponencial. La latencia de Expo ya no afecta a la petición ni a la
+ * conexión de base de datos que esta mantiene.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutboxService {
+
+    private static final int PUSH_BATCH_SIZE = 100;
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    // Filas reclamadas por iteración del relay
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    // Tiempo que una fila reclamada queda reservada si el relay muere a mitad de envío
+    @Value("${app.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.outbox.sent-retention-days:7}")
+    private long sentRetentionDays;
+
+    private ExecutorService relay;
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    @PostConstruct
+    void startRelay() {
+        relay = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopRelay() {
+        relay.shutdownNow();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueuePush(PushMessage message) {
+        if (message.getTo() == null || message.getTo().isEmpty()) {
+            log.warn("⚠️ Notificación push descartada: token vacío");
+            return;
+        }
+        enqueue(NotificationType.PUSH, message);
+    }
+
+    /**
+     * Mismo mensaje que NotificationService.sendLinkEstablishedNotification
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueLinkEstablished(String expoPushToken, String partnerName) {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "LINK_ESTABLISHED");
+        data.put("partnerName", partnerName);
+        enqueuePush(PushMessage.builder()
+            .to(expoPushToken)
+            .title("¡Vínculo establecido!")
+            .body(partnerName + " acaba de conectarse contigo en Nexus ❤️")
+            .data(data)
+            .build());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueEventApproval(String partnerEmail, String partnerName, String creatorName, String eventTitle) {
+        enqueue(NotificationType.EVENT_APPROVAL, eventPayload(partnerEmail, partnerName, creatorName, eventTitle));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueEventConfirmed(String creatorEmail, String creatorName, String eventTitle) {
+        enqueue(NotificationType.EVENT_CONFIRMED, eventPayload(creatorEmail, creatorName, null, eventTitle));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueEventRejected(String creatorEmail, String creatorName, String eventTitle) {
+        enqueue(NotificationType.EVENT_REJECTED, eventPayload(creatorEmail, creatorName, null, eventTitle));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueEventDeleted(String partnerEmail, String partnerName, String deletedBy, String eventTitle) {
+        enqueue(NotificationType.EVENT_DELETED, eventPayload(partnerEmail, partnerName, deletedBy, eventTitle));
+    }
+
+    /**
+     * Sondeo de respaldo: recoge reintentos vencidos y lo que quedó de otra instancia
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-millis:5000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    @Scheduled(cron = "${app.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(sentRetentionDays));
+        int purged = OutboxSupport.purgeSent(transactionTemplate, notificationOutboxRepository, cutoff);
+        log.info("Outbox de notificaciones: {} filas enviadas purgadas", purged);
+    }
+
+    private void enqueue(NotificationType type, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la notificación", e);
+        }
+        notificationOutboxRepository.save(NotificationOutbox.builder()
+            .type(type)
+            .payload(json)
+            .nextAttemptAt(Instant.now())
+            .build());
+        TransactionHooks.afterCommit(this::requestDrain);
+    }
+
+    /**
+     * Varias peticiones seguidas se funden en una sola pasada del relay
+     */
+    private void requestDrain() {
+        if (drainRequested.compareAndSet(false, true)) {
+            relay.execute(() -> {
+                drainRequested.set(false);
+                drain();
+            });
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                List<NotificationOutbox> claimed = claimBatch();
+                if (claimed.isEmpty()) {
+                    return;
+                }
+                deliver(claimed);
+                if (claimed.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Error en el relay de notificaciones: {}", e.getMessage());
+        }
+    }
+
+    private List<NotificationOutbox> claimBatch() {
+        return OutboxSupport.claimBatch(transactionTemplate, notificationOutboxRepository, batchSize, leaseSeconds);
+    }
+
+    private void deliver(List<NotificationOutbox> claimed) {
+        List<Long> sent = new ArrayList<>();
+        List<NotificationOutbox> failed = new ArrayList<>();
+
+        List<NotificationOutbox> pushEntries = new ArrayList<>();
+        for (NotificationOutbox entry : claimed) {
+            if (entry.getType() == NotificationType.PUSH) {
+                pushEntries.add(entry);
+                continue;
+            }
+            try {
+                deliverEventNotification(entry);
+                sent.add(entry.getId());
+            } catch (Exception e) {
+                recordFailure(entry, e);
+                failed.add(entry);
+            }
+        }
+
+        for (int i = 0; i < pushEntries.size(); i += PUSH_BATCH_SIZE) {
+            List<NotificationOutbox> batch = pushEntries.subList(i, Math.min(i + PUSH_BATCH_SIZE, pushEntries.size()));
+            try {
+                List<PushMessage> messages = new ArrayList<>(batch.size());
+                for (NotificationOutbox entry : batch) {
+                    messages.add(objectMapper.readValue(entry.getPayload(), PushMessage.class));
+                }
+                notificationService.sendNotificationBatch(messages);
+                batch.forEach(entry -> sent.add(entry.getId()));
+            } catch (Exception e) {
+                for (NotificationOutbox entry : batch) {
+                    recordFailure(entry, e);
+                    failed.add(entry);
+                }
+            }
+        }
+
+        OutboxSupport.complete(transactionTemplate, notificationOutboxRepository, sent, failed);
+        log.info("Outbox de notificaciones: {} enviadas, {} con error", sent.size(), failed.size());
+    }
+
+    private void deliverEventNotification(NotificationOutbox entry) throws JsonProcessingException {
+        Map<String, String> payload = objectMapper.readValue(entry.getPayload(), new TypeReference<Map<String, String>>() {});
+        String email = payload.get("recipientEmail");
+        String name = payload.get("recipientName");
+        String actor = payload.get("actorName");
+        String title = payload.get("eventTitle");
+        switch (entry.getType()) {
+            case EVENT_APPROVAL:
+                notificationService.sendEventApprovalNotification(email, name, actor, title);
+                break;
+            case EVENT_CONFIRMED:
+                notificationService.sendEventConfirmedNotification(email, name, title);
+                break;
+            case EVENT_REJECTED:
+                notificationService.sendEventRejectedNotification(email, name, title);
+                break;
+            case EVENT_DELETED:
+                notificationService.sendEventDeletedNotification(email, name, actor, title);
+                break;
+            default:
+                throw new IllegalStateException("Tipo de notificación no soportado: " + entry.getType());
+        }
+    }
+
+    /**
+     * Reintento con espera exponencial; tras maxAttempts queda en FAILED
+     */
+    private void recordFailure(NotificationOutbox entry, Exception e) {
+        if (OutboxSupport.recordFailure(entry, e, maxAttempts)) {
+            log.error("❌ Notificación {} descartada tras {} intentos: {}",
+                entry.getId(), entry.getAttempts(), OutboxSupport.errorMessage(e));
+        }
+    }
+
+    private static Map<String, String> eventPayload(String email, String name, String actor, String eventTitle) {
+        Map<String, String> payload = new HashMap<>();
+        payload.put("recipientEmail", email);
+        payload.put("recipientName", name);
+        payload.put("actorName", actor);
+        payload.put("eventTitle", eventTitle);
+        return payload;
+    }
+}
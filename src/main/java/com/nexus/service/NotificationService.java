@@ -1,22 +1,22 @@
 package com.nexus.service;
 
+import com.nexus.dto.PushMessage;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
-    private static final String EXPO_PUSH_URL = "https://exp.host/--/api/v2/push/send";
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final int EXPO_BATCH_SIZE = ExpoPushClient.MAX_MESSAGES_PER_REQUEST;
+
+    private final PushDeliveryService pushDeliveryService;
 
     /**
      * Envía una notificación push cuando se establece un vínculo
@@ -30,45 +30,22 @@ public class NotificationService {
             return;
         }
 
-        try {
-            log.info("🔔 Preparando notificación de vínculo establecido");
-            log.info("🔔 Destinatario: {}", partnerName);
-            log.info("🔔 Token Push: {}...", expoPushToken.substring(0, Math.min(30, expoPushToken.length())));
-            
-            // Construir el payload para Expo Push Notifications
-            Map<String, Object> notification = new HashMap<>();
-            notification.put("to", expoPushToken);
-            notification.put("sound", "default");
-            notification.put("title", "¡Vínculo establecido!");
-            notification.put("body", partnerName + " acaba de conectarse contigo en Nexus ❤️");
-            notification.put("priority", "high");
-            
-            // Datos personalizados
-            Map<String, String> data = new HashMap<>();
-            data.put("type", "LINK_ESTABLISHED");
-            data.put("partnerName", partnerName);
-            notification.put("data", data);
-
-            // Configurar headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Accept", "application/json");
-            headers.set("Accept-Encoding", "gzip, deflate");
+        log.info("🔔 Preparando notificación de vínculo establecido");
+        log.info("🔔 Destinatario: {}", partnerName);
+        log.info("🔔 Token Push: {}...", expoPushToken.substring(0, Math.min(30, expoPushToken.length())));
 
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(notification, headers);
+        // Datos personalizados
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "LINK_ESTABLISHED");
+        data.put("partnerName", partnerName);
 
-            // Enviar la notificación a Expo
-            ResponseEntity<String> response = restTemplate.postForEntity(EXPO_PUSH_URL, request, String.class);
-            
-            log.info("✅ Notificación enviada exitosamente. Response: {}", response.getBody());
-        } catch (Exception e) {
-            log.error("❌ Error enviando notificación push: {}", e.getMessage(), e);
-            // No lanzamos excepción para no interrumpir el flujo principal
-        }
+        sendNotification(expoPushToken, "¡Vínculo establecido!",
+            partnerName + " acaba de conectarse contigo en Nexus ❤️", data);
     }
 
     /**
      * Envía una notificación genérica
+     * Se encola y sale en el siguiente lote; no bloquea al llamador.
      * 
      * @param expoPushToken Token de Expo Push del destinatario
      * @param title Título de la notificación
@@ -81,28 +58,36 @@ public class NotificationService {
             return;
         }
 
-        try {
-            Map<String, Object> notification = new HashMap<>();
-            notification.put("to", expoPushToken);
-            notification.put("sound", "default");
-            notification.put("title", title);
-            notification.put("body", body);
-            notification.put("priority", "high");
-
-            if (data != null && !data.isEmpty()) {
-                notification.put("data", data);
-            }
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+        pushDeliveryService.submit(PushMessage.builder()
+            .to(expoPushToken)
+            .title(title)
+            .body(body)
+            .data(data)
+            .build());
+    }
+    
+    /**
+     * Envía varias notificaciones push
+     * Se encolan y el hilo de envío las agrupa en peticiones de hasta
+     * EXPO_BATCH_SIZE mensajes (límite de la API de Expo).
+     *
+     * @param messages Mensajes a enviar; se omiten los que no tienen token
+     */
+    public void sendNotifications(List<PushMessage> messages) {
+        for (PushMessage message : messages) {
+            pushDeliveryService.submit(message);
+        }
+    }
 
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(notification, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(EXPO_PUSH_URL, request, String.class);
-            
-            log.info("✅ Notificación enviada: {}", response.getBody());
-        } catch (Exception e) {
-            log.error("❌ Error enviando notificación", e);
+    /**
+     * Envía un lote (máximo EXPO_BATCH_SIZE) en una sola petición a Expo
+     * A diferencia del resto de métodos es síncrono y propaga el error, para que el llamador reintente.
+     */
+    public void sendNotificationBatch(List<PushMessage> batch) {
+        if (batch.size() > EXPO_BATCH_SIZE) {
+            throw new IllegalArgumentException("Máximo " + EXPO_BATCH_SIZE + " notificaciones por lote");
         }
+        pushDeliveryService.sendNow(batch);
     }
     
     /**
@@ -0,0 +1,96 @@
+package com.nexus.service;
+
+import com.nexus.entity.OutboxEntry;
+import com.nexus.repository.OutboxRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pasos comunes de los relays de las colas persistentes (emails y notificaciones)
+ *
+ * Reclamar un bloque con lease, cerrar el resultado de una entrega, calcular la
+ * espera exponencial de los fallidos y purgar las filas enviadas por trozos.
+ * Cada servicio conserva sus hilos, su forma de entregar y sus propiedades.
+ */
+final class OutboxSupport {
+
+    static final int PURGE_CHUNK_SIZE = 5000;
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final long FIRST_BACKOFF_SECONDS = 30L;
+    private static final long MAX_BACKOFF_SECONDS = 3600L;
+
+    private OutboxSupport() {
+    }
+
+    /**
+     * Reclamar un bloque: se reserva durante leaseSeconds y se cuenta el intento
+     */
+    static <T extends OutboxEntry> List<T> claimBatch(TransactionTemplate transactionTemplate,
+                                                      OutboxRepository<T> repository,
+                                                      int batchSize, long leaseSeconds) {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<T> due = repository.lockDueBatch(now, batchSize);
+            for (T entry : due) {
+                entry.setAttempts(entry.getAttempts() + 1);
+                entry.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return repository.saveAll(due);
+        });
+    }
+
+    /**
+     * Guardar el resultado de una entrega en una sola transacción
+     */
+    static <T extends OutboxEntry> void complete(TransactionTemplate transactionTemplate,
+                                                 OutboxRepository<T> repository,
+                                                 Collection<Long> sent, List<T> failed) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                repository.markSent(sent, Instant.now());
+            }
+            if (!failed.isEmpty()) {
+                repository.saveAll(failed);
+            }
+        });
+    }
+
+    /**
+     * Espera exponencial desde 30 s hasta 1 h; tras maxAttempts la fila se descarta
+     * Devuelve true si la fila quedó descartada.
+     */
+    static boolean recordFailure(OutboxEntry entry, Exception e, int maxAttempts) {
+        String message = errorMessage(e);
+        entry.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        if (entry.getAttempts() >= maxAttempts) {
+            entry.markExhausted();
+            return true;
+        }
+        long backoffSeconds = Math.min(MAX_BACKOFF_SECONDS, FIRST_BACKOFF_SECONDS << Math.min(entry.getAttempts() - 1, 7));
+        entry.setNextAttemptAt(Instant.now().plusSeconds(backoffSeconds));
+        return false;
+    }
+
+    static String errorMessage(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * Borrar las filas enviadas antes de cutoff, un trozo por transacción
+     */
+    static int purgeSent(TransactionTemplate transactionTemplate, OutboxRepository<?> repository, Instant cutoff) {
+        int purged = 0;
+        int deleted;
+        do {
+            Integer rows = transactionTemplate.execute(status ->
+                repository.purgeSentChunk(cutoff, PURGE_CHUNK_SIZE));
+            deleted = rows != null ? rows : 0;
+            purged += deleted;
+        } while (deleted == PURGE_CHUNK_SIZE);
+        return purged;
+    }
+}
@@ -0,0 +1,171 @@
+package com.nexus.service;
+
+import com.nexus.entity.Event;
+import com.nexus.entity.EventStatus;
+import com.nexus.entity.Link;
+import com.nexus.entity.PendingApprovalCounter;
+import com.nexus.repository.EventRepository;
+import com.nexus.repository.PendingApprovalCounterRepository;
+import com.nexus.util.GenerationGuardedCache;
+import com.nexus.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Contadores de eventos pendientes de aprobación por usuario
+ *
+ * EventService calcula quién debe aprobar el evento antes y después de cada
+ * cambio y llama a transition(): la fila de user_pending_counters se ajusta
+ * en la misma transacción y el valor en memoria se descarta tras el commit. La consulta
+ * de pending-count queda en una lectura de un mapa (o de la fila por clave
+ * primaria si no está en memoria). La fila se crea con el recuento completo
+ * la primera vez que se consulta, y un reconciliador periódico corrige la
+ * deriva y descarta la memoria (que solo ve los commits de esta instancia).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PendingApprovalCounters {
+
+    private static final int MAX_CACHED_USERS = 10_000;
+    private static final int RECONCILE_CHUNK_SIZE = 500;
+
+    private final PendingApprovalCounterRepository counterRepository;
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final GenerationGuardedCache<Long, Long> counts = new GenerationGuardedCache<>(MAX_CACHED_USERS);
+
+    /**
+     * Usuario que tiene que aprobar el evento, o null si no está pendiente
+     * Mismo criterio que EventRepository.countPendingApprovalByUserId.
+     */
+    public static Long approverOf(Event event) {
+        if (event.getStatus() != EventStatus.PENDING
+                || Boolean.TRUE.equals(event.getPartnerApproved())
+                || event.getDeletedAt() != null) {
+            return null;
+        }
+        Link link = event.getLink();
+        Long creatorId = event.getCreator().getId();
+        return link.getInitiatorUser().getId().equals(creatorId)
+            ? link.getPartnerUser().getId()
+            : link.getInitiatorUser().getId();
+    }
+
+    /**
+     * Registrar que un evento pasó de estar pendiente para "before" a estarlo para "after"
+     * (cualquiera puede ser null). Debe llamarse dentro de la transacción del cambio.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transition(Long before, Long after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null) {
+            apply(before, -1);
+        }
+        if (after != null) {
+            apply(after, 1);
+        }
+    }
+
+    public long get(Long userId) {
+        return counts.get(userId, id -> {
+            Long loaded = transactionTemplate.execute(status -> counterRepository.findById(id)
+                .map(PendingApprovalCounter::getPendingCount)
+                .orElseGet(() -> {
+                    long count = eventRepository.countPendingApprovalByUserId(id);
+                    counterRepository.upsertCount(id, count);
+                    return count;
+                }));
+            return loaded != null ? loaded : 0L;
+        });
+    }
+
+    /**
+     * Recalcular todas las filas existentes desde la tabla events
+     */
+    @Scheduled(fixedDelayString = "${app.pending-counters.reconcile-millis:300000}", initialDelay = 60000)
+    public void reconcile() {
+        try {
+            Map<Long, Long> actual = new HashMap<>();
+            for (Object[] row : eventRepository.countPendingApprovalsGroupedByUser()) {
+                actual.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+            }
+
+            int checked = 0;
+            int drifted = 0;
+            Long afterUserId = 0L;
+            while (true) {
+                List<PendingApprovalCounter> chunk = counterRepository.findChunkAfter(
+                    afterUserId, PageRequest.of(0, RECONCILE_CHUNK_SIZE));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                for (PendingApprovalCounter counter : chunk) {
+                    long expected = actual.getOrDefault(counter.getUserId(), 0L);
+                    if (counter.getPendingCount() != expected && recount(counter.getUserId())) {
+                        drifted++;
+                    }
+                }
+                checked += chunk.size();
+                afterUserId = chunk.get(chunk.size() - 1).getUserId();
+            }
+
+            // La memoria puede no haber visto commits de otras instancias
+            counts.invalidateAll();
+            if (drifted > 0) {
+                log.warn("Contadores de pendientes: {} de {} corregidos", drifted, checked);
+            } else {
+                log.debug("Contadores de pendientes: {} revisados sin deriva", checked);
+            }
+        } catch (Exception e) {
+            log.error("Error reconciliando contadores de pendientes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recontar un usuario con su fila bloqueada
+     * El recuento agrupado de reconcile() es anterior al recorrido y puede haber
+     * quedado viejo; con la fila bloqueada ninguna transición puede sumar su
+     * delta a mitad del recuento, y las que ya lo sumaron han hecho commit.
+     * @return true si la fila tenía deriva y se corrigió
+     */
+    private boolean recount(Long userId) {
+        Boolean corrected = transactionTemplate.execute(status -> {
+            Long stored = counterRepository.lockCount(userId);
+            if (stored == null) {
+                return false;
+            }
+            long count = eventRepository.countPendingApprovalByUserId(userId);
+            if (stored == count) {
+                return false;
+            }
+            counterRepository.upsertCount(userId, count);
+            return true;
+        });
+        return Boolean.TRUE.equals(corrected);
+    }
+
+    /**
+     * La fila se ajusta en la transacción del cambio; la memoria se descarta tras
+     * el commit y la siguiente lectura toma el valor de la fila. Sumar el delta
+     * en memoria contaría dos veces un cambio si una carga concurrente ya lo vio.
+     */
+    private void apply(Long userId, long delta) {
+        counterRepository.addDelta(userId, delta);
+        TransactionHooks.afterCommit(() -> counts.invalidate(userId));
+    }
+}
@@ -0,0 +1,230 @@
+package com.nexus.service;
+
+import com.nexus.dto.PushMessage;
+import com.nexus.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrega de notificaciones push a Expo
+ *
+ * - submit(): encola sin bloquear; un hilo propio agrupa los mensajes y envía
+ *   un lote cada flush-millis o en cuanto hay MAX_MESSAGES_PER_REQUEST.
+ * - sendNow(): envío síncrono de un lote para quien necesita saber si falló
+ *   (el relay del outbox).
+ * - Los tickets aceptados se guardan y un sondeo consulta sus recibos pasado
+ *   receipt-delay-minutes; los tokens que Expo reporta como DeviceNotRegistered
+ *   se borran del usuario para no volver a enviarles nada.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PushDeliveryService {
+
+    private static final String DEVICE_NOT_REGISTERED = "DeviceNotRegistered";
+    private static final int MAX_TRACKED_RECEIPTS = 100_000;
+
+    private final ExpoPushClient expoPushClient;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.push.flush-millis:200}")
+    private long flushMillis;
+
+    @Value("${app.push.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // Expo recomienda esperar unos 15 minutos antes de consultar los recibos
+    @Value("${app.push.receipt-delay-minutes:15}")
+    private long receiptDelayMinutes;
+
+    private BlockingQueue<PushMessage> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    // ticketId -> token y momento del envío, pendientes de recibo
+    private final Map<String, PendingReceipt> pendingReceipts = new ConcurrentHashMap<>();
+
+    @lombok.Value
+    static class PendingReceipt {
+        String token;
+        Instant sentAt;
+    }
+
+    @PostConstruct
+    void startFlusher() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::flushLoop, "push-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stopFlusher() {
+        running = false;
+        flusher.interrupt();
+    }
+
+    /**
+     * Encolar un mensaje para el próximo lote; nunca bloquea al llamador
+     * @return false si la cola está llena y el mensaje se descartó
+     */
+    public boolean submit(PushMessage message) {
+        if (message.getTo() == null || message.getTo().isEmpty()) {
+            return false;
+        }
+        boolean accepted = queue.offer(message);
+        if (!accepted) {
+            log.warn("⚠️ Cola de push llena ({}), notificación descartada", queueCapacity);
+        }
+        return accepted;
+    }
+
+    /**
+     * Enviar un lote ya formado de forma síncrona (máximo 100 mensajes)
+     * @throws IllegalStateException si la petición a Expo falla, para que el llamador reintente
+     */
+    public void sendNow(List<PushMessage> batch) {
+        List<PushMessage> messages = new ArrayList<>(batch.size());
+        for (PushMessage message : batch) {
+            if (message.getTo() != null && !message.getTo().isEmpty()) {
+                messages.add(message);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        try {
+            handleTickets(messages, expoPushClient.send(messages));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Envío push interrumpido", e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error enviando lote push: " + e.getMessage(), e);
+        }
+    }
+
+    private void flushLoop() {
+        List<PushMessage> batch = new ArrayList<>(ExpoPushClient.MAX_MESSAGES_PER_REQUEST);
+        while (running) {
+            try {
+                PushMessage first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Esperar como mucho flushMillis a que se complete el lote
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+                while (batch.size() < ExpoPushClient.MAX_MESSAGES_PER_REQUEST) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PushMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, ExpoPushClient.MAX_MESSAGES_PER_REQUEST - batch.size());
+                }
+                sendNow(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Error enviando lote de {} notificaciones: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void handleTickets(List<PushMessage> messages, List<ExpoPushClient.Ticket> tickets) {
+        Instant now = Instant.now();
+        Set<String> deadTokens = new HashSet<>();
+        int errors = 0;
+        for (int i = 0; i < tickets.size() && i < messages.size(); i++) {
+            ExpoPushClient.Ticket ticket = tickets.get(i);
+            String token = messages.get(i).getTo();
+            if (ticket.isOk()) {
+                if (ticket.getId() != null && pendingReceipts.size() < MAX_TRACKED_RECEIPTS) {
+                    pendingReceipts.put(ticket.getId(), new PendingReceipt(token, now));
+                }
+            } else {
+                errors++;
+                if (DEVICE_NOT_REGISTERED.equals(ticket.getError())) {
+                    deadTokens.add(token);
+                }
+            }
+        }
+        log.info("✅ Lote push enviado: {} mensajes, {} con error", messages.size(), errors);
+        pruneTokens(deadTokens);
+    }
+
+    /**
+     * Consultar los recibos de los tickets con la antigüedad suficiente
+     */
+    @Scheduled(fixedDelayString = "${app.push.receipt-poll-millis:300000}")
+    public void pollReceipts() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(receiptDelayMinutes));
+        // Los recibos que Expo no entrega en un día ya no llegarán
+        Instant expired = Instant.now().minus(Duration.ofDays(1));
+
+        List<String> ready = new ArrayList<>();
+        pendingReceipts.forEach((ticketId, pending) -> {
+            if (pending.getSentAt().isBefore(expired)) {
+                pendingReceipts.remove(ticketId);
+            } else if (pending.getSentAt().isBefore(cutoff)) {
+                ready.add(ticketId);
+            }
+        });
+
+        Set<String> deadTokens = new HashSet<>();
+        for (int i = 0; i < ready.size(); i += ExpoPushClient.MAX_RECEIPTS_PER_REQUEST) {
+            List<String> chunk = ready.subList(i, Math.min(i + ExpoPushClient.MAX_RECEIPTS_PER_REQUEST, ready.size()));
+            try {
+                Map<String, ExpoPushClient.Receipt> receipts = expoPushClient.getReceipts(chunk);
+                receipts.forEach((ticketId, receipt) -> {
+                    PendingReceipt pending = pendingReceipts.remove(ticketId);
+                    if (pending != null && !receipt.isOk() && DEVICE_NOT_REGISTERED.equals(receipt.getError())) {
+                        deadTokens.add(pending.getToken());
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Error consultando recibos push: {}", e.getMessage());
+            }
+        }
+        pruneTokens(deadTokens);
+    }
+
+    private void pruneTokens(Set<String> tokens) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Integer cleared = transactionTemplate.execute(status -> userRepository.clearFcmTokenIn(tokens));
+        log.info("🧹 {} tokens push dados de baja por Expo eliminados de {} usuarios", tokens.size(), cleared);
+    }
+}
@@ -0,0 +1,446 @@
+package com.nexus.service;
+
+import com.nexus.entity.Event;
+import com.nexus.entity.ExternalEvent;
+import com.nexus.entity.ExternalEventException;
+import com.nexus.repository.EventExceptionRepository;
+import com.nexus.repository.ExternalEventExceptionRepository;
+import com.nexus.util.RecurrenceRule;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor de recurrencia para eventos compartidos.
+ * Convierte una serie (DAILY, WEEKLY, MONTHLY) en ocurrencias concretas dentro de
+ * una ventana [from, to), aplicando las excepciones de event_exceptions.
+ * Las series compiladas se cachean por ID de evento y se invalidan cuando cambia updatedAt.
+ * También expande las reglas RRULE de los eventos externos importados, aplicando
+ * calendar_event_exceptions; las reglas compiladas se cachean por syncHash.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecurrenceService {
+
+    // Límite de seguridad por serie para ventanas muy amplias
+    private static final int MAX_OCCURRENCES_PER_SERIES = 1000;
+    private static final int MAX_CACHED_SERIES = 10_000;
+
+    private final EventExceptionRepository eventExceptionRepository;
+    private final ExternalEventExceptionRepository externalEventExceptionRepository;
+
+    private final Map<Long, CompiledSeries> seriesCache = new ConcurrentHashMap<>();
+    private final Map<String, CompiledRule> ruleCache = new ConcurrentHashMap<>();
+
+    /**
+     * Expande una lista de eventos en ocurrencias dentro de [from, to), ordenadas por inicio.
+     * Los eventos no recurrentes generan como máximo una ocurrencia.
+     */
+    public List<Occurrence> expand(List<Event> events, Instant from, Instant to) {
+        if (events.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, CompiledSeries> compiled = compileAll(events);
+        List<Occurrence> occurrences = new ArrayList<>();
+
+        for (Event event : events) {
+            CompiledSeries series = compiled.get(event.getId());
+            if (series == null) {
+                addIfOverlaps(occurrences, event, event.getStartDateTime(), event.getEndDateTime(), from, to);
+            } else {
+                series.expandInto(event, from, to, occurrences);
+            }
+        }
+
+        occurrences.sort(Comparator.comparing(Occurrence::getStart));
+        return occurrences;
+    }
+
+    /**
+     * Expande los eventos externos en [from, to). Los eventos con RRULE se convierten en
+     * sus instancias (aplicando cancelaciones y movimientos); el resto se devuelve tal cual.
+     * Una serie cuya RRULE no se puede interpretar se devuelve solo con su primera
+     * instancia, marcada como unexpanded.
+     */
+    public List<ExternalOccurrence> expandExternal(List<ExternalEvent> events, Instant from, Instant to) {
+        if (events.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<ExternalEvent> recurring = new ArrayList<>();
+        for (ExternalEvent event : events) {
+            if (event.getRecurrenceRule() != null && !event.getRecurrenceRule().isBlank()) {
+                recurring.add(event);
+            }
+        }
+
+        Map<Long, Map<Instant, ExternalEventException>> exceptionsByEvent = loadExternalExceptions(recurring);
+        List<ExternalOccurrence> occurrences = new ArrayList<>(events.size());
+
+        int unexpanded = 0;
+        for (ExternalEvent event : events) {
+            RecurrenceRule rule = compiledRule(event);
+            if (rule == null) {
+                boolean unparsed = event.getRecurrenceRule() != null && !event.getRecurrenceRule().isBlank();
+                if (unparsed) {
+                    unexpanded++;
+                }
+                occurrences.add(new ExternalOccurrence(event, event.getStartDatetime(), event.getEndDatetime(),
+                    event.getTitle(), unparsed));
+                continue;
+            }
+            expandRule(event, rule, from, to,
+                exceptionsByEvent.getOrDefault(event.getId(), Collections.emptyMap()), occurrences);
+        }
+
+        if (unexpanded > 0) {
+            log.warn("{} series externas con RRULE no soportada se devuelven sin expandir", unexpanded);
+        }
+        occurrences.sort(Comparator.comparing(ExternalOccurrence::getStart));
+        return occurrences;
+    }
+
+    private void expandRule(ExternalEvent event, RecurrenceRule rule, Instant from, Instant to,
+                            Map<Instant, ExternalEventException> exceptions, List<ExternalOccurrence> target) {
+        Instant dtstart = event.getRruleDtstartUtc() != null ? event.getRruleDtstartUtc() : event.getStartDatetime();
+        Duration duration = Duration.between(event.getStartDatetime(), event.getEndDatetime());
+
+        Set<Instant> consumed = exceptions.isEmpty() ? Collections.emptySet() : new HashSet<>();
+        Iterator<Instant> starts = rule.iterator(dtstart, seriesZone(event), from.minus(duration), to,
+            event.getRruleUntilUtc(), event.getRruleCount());
+        int emitted = 0;
+
+        while (starts.hasNext() && emitted < MAX_OCCURRENCES_PER_SERIES) {
+            Instant start = starts.next();
+            ExternalEventException exception = exceptions.get(start);
+            if (exception == null) {
+                target.add(new ExternalOccurrence(event, start, start.plus(duration), event.getTitle(), false));
+                emitted++;
+                continue;
+            }
+            consumed.add(start);
+            if (!Boolean.TRUE.equals(exception.getIsCancelled())) {
+                addMoved(event, exception, start, duration, from, to, target);
+                emitted++;
+            }
+        }
+
+        // Instancias movidas hacia la ventana desde una fecha original fuera de ella
+        for (ExternalEventException exception : exceptions.values()) {
+            if (!consumed.contains(exception.getOccurrenceStart())
+                    && !Boolean.TRUE.equals(exception.getIsCancelled())
+                    && exception.getNewStartDatetime() != null) {
+                addMoved(event, exception, exception.getOccurrenceStart(), duration, from, to, target);
+            }
+        }
+    }
+
+    private static void addMoved(ExternalEvent event, ExternalEventException exception, Instant originalStart,
+                                 Duration duration, Instant from, Instant to, List<ExternalOccurrence> target) {
+        Instant start = exception.getNewStartDatetime() != null ? exception.getNewStartDatetime() : originalStart;
+        Instant end = exception.getNewEndDatetime() != null ? exception.getNewEndDatetime() : start.plus(duration);
+        if (start.isBefore(to) && end.isAfter(from)) {
+            String title = exception.getNewTitle() != null ? exception.getNewTitle() : event.getTitle();
+            target.add(new ExternalOccurrence(event, start, end, title, false));
+        }
+    }
+
+    /**
+     * Zona de la serie (start_tzid); UTC si falta o no es un identificador válido
+     */
+    private static ZoneId seriesZone(ExternalEvent event) {
+        String tzid = event.getStartTimezone();
+        if (tzid == null || tzid.isBlank()) {
+            return ZoneOffset.UTC;
+        }
+        try {
+            return ZoneId.of(tzid.trim());
+        } catch (DateTimeException e) {
+            log.debug("Zona horaria no válida para evento externo {}: {}", event.getId(), tzid);
+            return ZoneOffset.UTC;
+        }
+    }
+
+    /**
+     * Regla compilada del evento, reutilizada mientras no cambie su syncHash.
+     * Devuelve null si el evento no tiene RRULE o si ésta no se puede interpretar.
+     */
+    private RecurrenceRule compiledRule(ExternalEvent event) {
+        String rrule = event.getRecurrenceRule();
+        if (rrule == null || rrule.isBlank()) {
+            return null;
+        }
+
+        String key = event.getSyncHash() != null ? event.getSyncHash() : rrule;
+        CompiledRule cached = ruleCache.get(key);
+        if (cached != null && cached.source.equals(rrule)) {
+            return cached.rule;
+        }
+
+        RecurrenceRule rule;
+        try {
+            rule = RecurrenceRule.parse(rrule);
+        } catch (RuntimeException e) {
+            log.warn("RRULE no soportada para evento externo {}: {} ({})", event.getId(), rrule, e.getMessage());
+            rule = null;
+        }
+
+        if (ruleCache.size() >= MAX_CACHED_SERIES) {
+            ruleCache.clear();
+        }
+        ruleCache.put(key, new CompiledRule(rrule, rule));
+        return rule;
+    }
+
+    private Map<Long, Map<Instant, ExternalEventException>> loadExternalExceptions(List<ExternalEvent> recurring) {
+        if (recurring.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> eventIds = new ArrayList<>(recurring.size());
+        for (ExternalEvent event : recurring) {
+            eventIds.add(event.getId());
+        }
+
+        Map<Long, Map<Instant, ExternalEventException>> exceptionsByEvent = new HashMap<>();
+        for (ExternalEventException exception : externalEventExceptionRepository.findByExternalEventIdIn(eventIds)) {
+            exceptionsByEvent
+                .computeIfAbsent(exception.getExternalEventId(), id -> new HashMap<>())
+                .put(exception.getOccurrenceStart(), exception);
+        }
+        return exceptionsByEvent;
+    }
+
+    /**
+     * Invalida la serie cacheada de un evento (p. ej. al agregar una excepción o eliminarlo)
+     */
+    public void evict(Long eventId) {
+        if (eventId != null) {
+            seriesCache.remove(eventId);
+        }
+    }
+
+    /**
+     * Obtiene las series compiladas de los eventos recurrentes, cargando en una sola
+     * consulta las excepciones de las que no están en caché o quedaron obsoletas.
+     */
+    private Map<Long, CompiledSeries> compileAll(List<Event> events) {
+        Map<Long, CompiledSeries> result = new HashMap<>();
+        List<Event> misses = new ArrayList<>();
+
+        for (Event event : events) {
+            Frequency frequency = Frequency.parse(event);
+            if (frequency == null) {
+                continue;
+            }
+            CompiledSeries cached = seriesCache.get(event.getId());
+            if (cached != null && cached.isCurrent(event, frequency)) {
+                result.put(event.getId(), cached);
+            } else {
+                misses.add(event);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Set<LocalDate>> exceptionsByEvent = loadExceptionDays(misses);
+
+        if (seriesCache.size() + misses.size() > MAX_CACHED_SERIES) {
+            log.debug("Caché de series recurrentes llena, limpiando {} entradas", seriesCache.size());
+            seriesCache.clear();
+        }
+
+        for (Event event : misses) {
+            CompiledSeries series = new CompiledSeries(
+                Frequency.parse(event),
+                event.getStartDateTime(),
+                event.getEndDateTime(),
+                event.getUpdatedAt(),
+                exceptionsByEvent.getOrDefault(event.getId(), Collections.emptySet())
+            );
+            seriesCache.put(event.getId(), series);
+            result.put(event.getId(), series);
+        }
+
+        return result;
+    }
+
+    private Map<Long, Set<LocalDate>> loadExceptionDays(List<Event> events) {
+        List<Long> eventIds = new ArrayList<>(events.size());
+        for (Event event : events) {
+            eventIds.add(event.getId());
+        }
+
+        Map<Long, Set<LocalDate>> exceptionsByEvent = new HashMap<>();
+        for (Object[] row : eventExceptionRepository.findExceptionDatesByEventIdIn(eventIds)) {
+            Long eventId = (Long) row[0];
+            Instant exceptionDate = (Instant) row[1];
+            exceptionsByEvent
+                .computeIfAbsent(eventId, id -> new HashSet<>())
+                .add(LocalDate.ofInstant(exceptionDate, ZoneOffset.UTC));
+        }
+        return exceptionsByEvent;
+    }
+
+    private static void addIfOverlaps(List<Occurrence> target, Event event,
+                                      Instant start, Instant end, Instant from, Instant to) {
+        if (start.isBefore(to) && end.isAfter(from)) {
+            target.add(new Occurrence(event, start, end));
+        }
+    }
+
+    /**
+     * Ocurrencia concreta de un evento (o de una instancia de una serie recurrente)
+     */
+    @lombok.Value
+    public static class Occurrence {
+        Event event;
+        Instant start;
+        Instant end;
+    }
+
+    /**
+     * Instancia concreta de un evento externo (título sobrescrito si la instancia fue movida)
+     * unexpanded: la serie tiene una RRULE no soportada y esta es solo su primera instancia
+     */
+    @lombok.Value
+    public static class ExternalOccurrence {
+        ExternalEvent event;
+        Instant start;
+        Instant end;
+        String title;
+        boolean unexpanded;
+    }
+
+    // La regla puede ser null si la cadena no se pudo compilar (se cachea igualmente)
+    private static final class CompiledRule {
+        private final String source;
+        private final RecurrenceRule rule;
+
+        CompiledRule(String source, RecurrenceRule rule) {
+            this.source = source;
+            this.rule = rule;
+        }
+    }
+
+    enum Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY;
+
+        static Frequency parse(Event event) {
+            if (!Boolean.TRUE.equals(event.getIsRecurring()) || event.getRecurrencePattern() == null) {
+                return null;
+            }
+            try {
+                return Frequency.valueOf(event.getRecurrencePattern().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Serie compilada: ancla, duración y días excluidos (en UTC).
+     * Una serie DAILY/WEEKLY/MONTHLY produce como máximo una instancia por día,
+     * por lo que las excepciones se comparan por fecha.
+     */
+    private static final class CompiledSeries {
+        private final Frequency frequency;
+        private final Instant anchor;
+        private final Instant anchorEnd;
+        private final Duration duration;
+        private final Instant version;
+        private final Set<LocalDate> excludedDays;
+
+        CompiledSeries(Frequency frequency, Instant anchor, Instant anchorEnd,
+                       Instant version, Set<LocalDate> excludedDays) {
+            this.frequency = frequency;
+            this.anchor = anchor;
+            this.anchorEnd = anchorEnd;
+            this.duration = Duration.between(anchor, anchorEnd);
+            this.version = version;
+            this.excludedDays = excludedDays;
+        }
+
+        boolean isCurrent(Event event, Frequency currentFrequency) {
+            return frequency == currentFrequency
+                && anchor.equals(event.getStartDateTime())
+                && anchorEnd.equals(event.getEndDateTime())
+                && Objects.equals(version, event.getUpdatedAt());
+        }
+
+        void expandInto(Event event, Instant from, Instant to, List<Occurrence> target) {
+            // Primera instancia cuyo fin podría caer dentro de la ventana
+            Instant earliestStart = from.minus(duration);
+            ZonedDateTime anchorUtc = anchor.atZone(ZoneOffset.UTC);
+
+            long index = firstCandidateIndex(anchorUtc, earliestStart);
+            int emitted = 0;
+
+            while (emitted < MAX_OCCURRENCES_PER_SERIES) {
+                Instant start = nth(anchorUtc, index).toInstant();
+                if (!start.isBefore(to)) {
+                    break;
+                }
+                Instant end = start.plus(duration);
+                if (end.isAfter(from) && !excludedDays.contains(LocalDate.ofInstant(start, ZoneOffset.UTC))) {
+                    target.add(new Occurrence(event, start, end));
+                    emitted++;
+                }
+                index++;
+            }
+        }
+
+        private long firstCandidateIndex(ZonedDateTime anchorUtc, Instant earliestStart) {
+            if (!earliestStart.isAfter(anchor)) {
+                return 0;
+            }
+            ZonedDateTime earliestUtc = earliestStart.atZone(ZoneOffset.UTC);
+            switch (frequency) {
+                case DAILY:
+                    return ChronoUnit.DAYS.between(anchorUtc, earliestUtc);
+                case WEEKLY:
+                    return ChronoUnit.WEEKS.between(anchorUtc, earliestUtc);
+                default:
+                    // Retroceder un mes para no perder instancias ajustadas a fin de mes
+                    return Math.max(0, ChronoUnit.MONTHS.between(anchorUtc, earliestUtc) - 1);
+            }
+        }
+
+        private ZonedDateTime nth(ZonedDateTime anchorUtc, long index) {
+            switch (frequency) {
+                case DAILY:
+                    return anchorUtc.plusDays(index);
+                case WEEKLY:
+                    return anchorUtc.plusWeeks(index);
+                default:
+                    // Siempre desde el ancla para evitar la deriva 31 -> 30 -> 28
+                    return anchorUtc.plusMonths(index);
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.nexus.service;
+
+import com.nexus.dto.PushMessage;
+import com.nexus.entity.Event;
+import com.nexus.entity.EventReminder;
+import com.nexus.entity.Link;
+import com.nexus.repository.EventRepository;
+import com.nexus.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Despacho de recordatorios de eventos
+ *
+ * Cada cierto tiempo se cargan los recordatorios que disparan dentro del
+ * horizonte configurado y se colocan en una rueda de tiempo jerárquica en
+ * memoria; un tick por segundo avanza la rueda y envía los vencidos en lote.
+ * Las ediciones y borrados de EventService reprograman o cancelan las
+ * entradas del evento, así que no hace falta consultar la base de datos en
+ * cada tick. El envío se hace en un hilo propio: el tick corre en el
+ * planificador compartido y no debe esperar a Expo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReminderDispatcher {
+
+    // Máximo de minutes_before admitido en un recordatorio (1 semana)
+    private static final long MAX_REMINDER_LEAD_MINUTES = 10080;
+    // Lotes de recordatorios pendientes de entregar antes de descartar
+    private static final int MAX_PENDING_DELIVERIES = 1000;
+
+    private final EventRepository eventRepository;
+    private final RecurrenceService recurrenceService;
+    private final NotificationService notificationService;
+
+    @Value("${app.reminders.tick-millis:1000}")
+    private long tickMillis;
+
+    // Recordatorios que se mantienen en la rueda por adelantado
+    @Value("${app.reminders.horizon-minutes:60}")
+    private long horizonMinutes;
+
+    // Rueda y su índice por evento, protegidos por this
+    private TimingWheel<ReminderKey, ReminderTask> wheel;
+    private final Map<Long, Set<ReminderKey>> keysByEvent = new HashMap<>();
+    private Instant loadedUntil;
+    // Generación por evento (valor de changeSeq en su último cancel/reschedule):
+    // una carga que empezó antes de un cambio del evento descarta su resultado
+    private final Map<Long, Long> generations = new HashMap<>();
+    private long changeSeq;
+
+    private ThreadPoolExecutor sender;
+
+    @PostConstruct
+    void init() {
+        wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        loadedUntil = Instant.now();
+        sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING_DELIVERIES), runnable -> {
+                Thread thread = new Thread(runnable, "reminder-sender");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * Recargar el horizonte completo; reprogramar una entrada existente no la duplica
+     */
+    @Scheduled(fixedDelayString = "${app.reminders.reload-millis:600000}", initialDelay = 5000)
+    public void reloadHorizon() {
+        try {
+            long loadSeq;
+            synchronized (this) {
+                loadSeq = changeSeq;
+            }
+            Instant now = Instant.now();
+            Instant horizonEnd = now.plus(Duration.ofMinutes(horizonMinutes));
+            List<Event> events = eventRepository.findReminderCandidates(
+                now, horizonEnd.plus(Duration.ofMinutes(MAX_REMINDER_LEAD_MINUTES)));
+
+            int scheduled = 0;
+            synchronized (this) {
+                for (Event event : events) {
+                    // Cancelado o reprogramado después de la consulta: la fila leída es vieja
+                    if (generations.getOrDefault(event.getId(), 0L) > loadSeq) {
+                        continue;
+                    }
+                    scheduled += scheduleEvent(event, now, horizonEnd);
+                }
+                loadedUntil = horizonEnd;
+                // La consulta ya reflejó los cambios anteriores a loadSeq; una
+                // reprogramación todavía en curso de esa época se descarta sin perder nada
+                generations.values().removeIf(generation -> generation <= loadSeq);
+            }
+            log.info("Recordatorios programados hasta {}: {} ({} en la rueda)", horizonEnd, scheduled, pendingCount());
+        } catch (Exception e) {
+            log.error("Error cargando recordatorios: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reminders.tick-millis:1000}")
+    public void tick() {
+        List<ReminderTask> due;
+        synchronized (this) {
+            due = wheel.advance(System.currentTimeMillis());
+            for (ReminderTask task : due) {
+                Set<ReminderKey> keys = keysByEvent.get(task.getKey().getEventId());
+                if (keys != null) {
+                    keys.remove(task.getKey());
+                    if (keys.isEmpty()) {
+                        keysByEvent.remove(task.getKey().getEventId());
+                    }
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        List<PushMessage> messages = new ArrayList<>();
+        for (ReminderTask task : due) {
+            for (String token : task.getPushTokens()) {
+                Map<String, String> data = new HashMap<>();
+                data.put("type", "EVENT_REMINDER");
+                data.put("eventId", String.valueOf(task.getKey().getEventId()));
+                data.put("startDateTime", task.getKey().getOccurrenceStart().toString());
+                messages.add(PushMessage.builder()
+                    .to(token)
+                    .title(task.getTitle())
+                    .body(task.getBody())
+                    .data(data)
+                    .build());
+            }
+        }
+        log.info("Disparando {} recordatorios ({} notificaciones)", due.size(), messages.size());
+        try {
+            sender.execute(() -> {
+                try {
+                    notificationService.sendNotifications(messages);
+                } catch (Exception e) {
+                    log.error("Error enviando recordatorios: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Envío de recordatorios saturado, {} notificaciones descartadas", messages.size());
+        }
+    }
+
+    /**
+     * Volver a programar los recordatorios de un evento tras editarlo o aprobarlo
+     * Llamar después del commit para leer el estado confirmado.
+     */
+    public void reschedule(Long eventId) {
+        long generation;
+        synchronized (this) {
+            generation = nextGeneration(eventId);
+        }
+        Instant now = Instant.now();
+        Event event = eventRepository.findReminderCandidateById(eventId).orElse(null);
+        synchronized (this) {
+            // Otro cancel/reschedule del evento llegó durante la consulta: manda el suyo
+            if (!Long.valueOf(generation).equals(generations.get(eventId))) {
+                return;
+            }
+            cancelInternal(eventId);
+            if (event != null) {
+                scheduleEvent(event, now, loadedUntil);
+            }
+        }
+    }
+
+    /**
+     * Cancelar los recordatorios pendientes de un evento eliminado o rechazado
+     */
+    public synchronized void cancel(Long eventId) {
+        nextGeneration(eventId);
+        cancelInternal(eventId);
+    }
+
+    public synchronized int pendingCount() {
+        return wheel.size();
+    }
+
+    private long nextGeneration(Long eventId) {
+        long generation = ++changeSeq;
+        generations.put(eventId, generation);
+        return generation;
+    }
+
+    private void cancelInternal(Long eventId) {
+        Set<ReminderKey> keys = keysByEvent.remove(eventId);
+        if (keys != null) {
+            keys.forEach(wheel::cancel);
+        }
+    }
+
+    /**
+     * Programar las ocurrencias del evento cuyo recordatorio dispara en [now, until)
+     */
+    private int scheduleEvent(Event event, Instant now, Instant until) {
+        if (event.getReminders() == null || event.getReminders().isEmpty() || !until.isAfter(now)) {
+            return 0;
+        }
+        List<String> tokens = pushTokens(event.getLink());
+        if (tokens.isEmpty()) {
+            return 0;
+        }
+
+        Instant occurrencesTo = until.plus(Duration.ofMinutes(MAX_REMINDER_LEAD_MINUTES));
+        int scheduled = 0;
+        for (RecurrenceService.Occurrence occurrence : recurrenceService.expand(List.of(event), now, occurrencesTo)) {
+            for (EventReminder reminder : event.getReminders()) {
+                Instant fireAt = occurrence.getStart().minus(Duration.ofMinutes(reminder.getMinutesBefore()));
+                if (fireAt.isBefore(now) || !fireAt.isBefore(until)) {
+                    continue;
+                }
+                ReminderKey key = new ReminderKey(event.getId(), occurrence.getStart(), reminder.getMinutesBefore());
+                ReminderTask task = new ReminderTask(key, event.getTitle(), reminderBody(reminder), tokens);
+                wheel.schedule(key, fireAt.toEpochMilli(), task);
+                keysByEvent.computeIfAbsent(event.getId(), id -> new HashSet<>()).add(key);
+                scheduled++;
+            }
+        }
+        return scheduled;
+    }
+
+    private static List<String> pushTokens(Link link) {
+        if (link == null) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>(2);
+        String initiatorToken = link.getInitiatorUser().getFcmToken();
+        String partnerToken = link.getPartnerUser().getFcmToken();
+        if (initiatorToken != null && !initiatorToken.isEmpty()) {
+            tokens.add(initiatorToken);
+        }
+        if (partnerToken != null && !partnerToken.isEmpty()) {
+            tokens.add(partnerToken);
+        }
+        return tokens;
+    }
+
+    private static String reminderBody(EventReminder reminder) {
+        if (reminder.getLabel() != null && !reminder.getLabel().isBlank()) {
+            return reminder.getLabel();
+        }
+        int minutes = reminder.getMinutesBefore();
+        if (minutes == 0) {
+            return "Tu evento empieza ahora";
+        }
+        if (minutes % 1440 == 0) {
+            return "Tu evento empieza en " + (minutes / 1440) + (minutes == 1440 ? " día" : " días");
+        }
+        if (minutes % 60 == 0) {
+            return "Tu evento empieza en " + (minutes / 60) + (minutes == 60 ? " hora" : " horas");
+        }
+        return "Tu evento empieza en " + minutes + " minutos";
+    }
+
+    /**
+     * Un recordatorio concreto: ocurrencia del evento y antelación
+     */
+    @lombok.Value
+    static class ReminderKey {
+        Long eventId;
+        Instant occurrenceStart;
+        Integer minutesBefore;
+    }
+
+    @lombok.Value
+    static class ReminderTask {
+        ReminderKey key;
+        String title;
+        String body;
+        List<String> pushTokens;
+    }
+}
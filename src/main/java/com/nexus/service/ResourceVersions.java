@@ -0,0 +1,85 @@
+package com.nexus.service;
+
+import com.nexus.entity.Link;
+import com.nexus.util.TransactionHooks;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versiones en memoria de los recursos que los clientes consultan al volver
+ * a cada pantalla, para responder 304 Not Modified sin leer la base de datos
+ *
+ * - CALENDAR: eventos del vínculo del usuario. Es la versión del calendario
+ *   del vínculo, guardada por miembro para que la comprobación no tenga que
+ *   resolver el vínculo del usuario.
+ * - PENDING_APPROVAL: subconjunto del calendario; comparte su versión con
+ *   un tag distinto.
+ * - LINK_STATUS: estado del vínculo y datos de la pareja.
+ *
+ * Los ETag incluyen un identificador de arranque: tras un reinicio las
+ * versiones vuelven a cero y ningún tag anterior coincide. Como las demás
+ * estructuras en memoria, supone una sola instancia del backend.
+ */
+@Component
+public class ResourceVersions {
+
+    public enum Resource {
+        CALENDAR("cal"),
+        PENDING_APPROVAL("pending"),
+        LINK_STATUS("link");
+
+        private final String tag;
+
+        Resource(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final String bootId = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+    private final Map<Resource, Map<Long, Long>> versions = new ConcurrentHashMap<>();
+
+    /**
+     * ETag fuerte del recurso; calcularlo ANTES de leer los datos que se devuelven
+     */
+    public String etag(Resource resource, Long userId) {
+        Resource source = resource == Resource.PENDING_APPROVAL ? Resource.CALENDAR : resource;
+        long version = versions.getOrDefault(source, Map.of()).getOrDefault(userId, 0L);
+        return "\"" + bootId + "-" + resource.tag + "-" + userId + "-" + version + "\"";
+    }
+
+    /**
+     * Cambio en los eventos de un vínculo
+     */
+    public void bumpCalendar(Link link) {
+        bump(Resource.CALENDAR, link.getInitiatorUser().getId(), link.getPartnerUser().getId());
+    }
+
+    /**
+     * Cambio en el propio vínculo o en el perfil de uno de sus miembros
+     * (los nombres y el avatar aparecen en ambos recursos)
+     */
+    public void bumpLinkMembers(Link link) {
+        bump(Resource.CALENDAR, link.getInitiatorUser().getId(), link.getPartnerUser().getId());
+        bump(Resource.LINK_STATUS, link.getInitiatorUser().getId(), link.getPartnerUser().getId());
+    }
+
+    /**
+     * Se incrementa ya y otra vez tras el commit: el primero invalida los tags
+     * que los clientes tienen mientras la transacción está en curso, el segundo
+     * los que se entregaron con datos leídos antes del commit.
+     */
+    private void bump(Resource resource, Long... userIds) {
+        increment(resource, userIds);
+        TransactionHooks.afterCommit(() -> increment(resource, userIds));
+    }
+
+    private void increment(Resource resource, Long... userIds) {
+        Map<Long, Long> byUser = versions.computeIfAbsent(resource, r -> new ConcurrentHashMap<>());
+        for (Long userId : userIds) {
+            byUser.merge(userId, 1L, Long::sum);
+        }
+    }
+}
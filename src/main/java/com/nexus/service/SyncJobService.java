@@ -0,0 +1,297 @@
+package com.nexus.service;
+
+import com.nexus.dto.SyncEventRequest;
+import com.nexus.dto.SyncJobResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de sincronizaciones asíncronas de calendarios externos
+ *
+ * Un pool fijo de workers drena la cola fuera de los hilos de Tomcat.
+ * La cola es justa por usuario: los usuarios con trabajos pendientes se
+ * atienden por turnos (round-robin) y cada usuario tiene como máximo un
+ * trabajo en ejecución, así que un teléfono con muchos reintentos no
+ * acapara los workers ni compite consigo mismo por las mismas filas.
+ *
+ * Un reintento con el mismo payload mientras el original sigue en cola o en
+ * ejecución no crea otro trabajo: devuelve el que ya está en curso.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncJobService {
+
+    private final ExternalCalendarService externalCalendarService;
+
+    @Value("${app.sync.workers:4}")
+    private int workerCount;
+
+    // Límite de trabajos en cola; al superarlo se rechaza con 503
+    @Value("${app.sync.max-pending-jobs:1000}")
+    private int maxPendingJobs;
+
+    // Tiempo que se conserva el resultado de un trabajo terminado
+    @Value("${app.sync.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+
+    private final Map<String, SyncJob> jobs = new ConcurrentHashMap<>();
+
+    // Estado de la cola, protegido por queueLock
+    private final Object queueLock = new Object();
+    private final Map<Long, Deque<SyncJob>> pendingByUser = new HashMap<>();
+    private final Deque<Long> readyUsers = new ArrayDeque<>();
+    private final Set<Long> runningUsers = new HashSet<>();
+    // Trabajos en cola o en ejecución por payload, para fusionar reintentos
+    private final Map<JobKey, SyncJob> inFlight = new HashMap<>();
+    private int pendingCount;
+    private boolean shuttingDown;
+
+    private ExecutorService workers;
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "sync-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::workerLoop);
+        }
+        log.info("Pool de sincronización iniciado con {} workers", workerCount);
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        synchronized (queueLock) {
+            shuttingDown = true;
+            queueLock.notifyAll();
+        }
+        workers.shutdownNow();
+    }
+
+    /**
+     * Encolar una sincronización y devolver el trabajo creado
+     * @throws IllegalStateException si la cola está llena
+     */
+    public SyncJobResponse submit(Long userId, List<SyncEventRequest> events, Collection<Long> snapshotCalendarIds) {
+        purgeExpiredJobs();
+
+        SyncJob job = new SyncJob(UUID.randomUUID().toString(), userId, events, Set.copyOf(snapshotCalendarIds));
+
+        synchronized (queueLock) {
+            SyncJob running = inFlight.get(job.key);
+            if (running != null) {
+                log.info("Sincronización repetida para usuario {}: se devuelve el trabajo {} en curso", userId, running.id);
+                return running.toResponse();
+            }
+            if (pendingCount >= maxPendingJobs) {
+                throw new IllegalStateException("La cola de sincronización está llena");
+            }
+            jobs.put(job.id, job);
+            inFlight.put(job.key, job);
+            Deque<SyncJob> userQueue = pendingByUser.computeIfAbsent(userId, id -> new ArrayDeque<>());
+            userQueue.addLast(job);
+            pendingCount++;
+            // Un usuario entra a la rueda solo si no está ya en ella ni ejecutando
+            if (userQueue.size() == 1 && !runningUsers.contains(userId)) {
+                readyUsers.addLast(userId);
+                queueLock.notify();
+            }
+        }
+
+        log.info("Sincronización {} encolada para usuario {} con {} eventos", job.id, userId, events.size());
+        return job.toResponse();
+    }
+
+    public Optional<SyncJobResponse> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(SyncJob::toResponse);
+    }
+
+    private void workerLoop() {
+        while (true) {
+            SyncJob job;
+            try {
+                job = takeNext();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (job == null) {
+                return;
+            }
+            try {
+                run(job);
+            } finally {
+                release(job);
+            }
+        }
+    }
+
+    private SyncJob takeNext() throws InterruptedException {
+        synchronized (queueLock) {
+            while (readyUsers.isEmpty() && !shuttingDown) {
+                queueLock.wait();
+            }
+            if (shuttingDown) {
+                return null;
+            }
+            Long userId = readyUsers.pollFirst();
+            Deque<SyncJob> userQueue = pendingByUser.get(userId);
+            SyncJob job = userQueue.pollFirst();
+            if (userQueue.isEmpty()) {
+                pendingByUser.remove(userId);
+            }
+            pendingCount--;
+            runningUsers.add(userId);
+            return job;
+        }
+    }
+
+    /**
+     * Al terminar, el usuario vuelve al final de la rueda si tiene más trabajos
+     */
+    private void release(SyncJob job) {
+        Long userId = job.userId;
+        synchronized (queueLock) {
+            inFlight.remove(job.key);
+            job.key = null;
+            runningUsers.remove(userId);
+            if (pendingByUser.containsKey(userId)) {
+                readyUsers.addLast(userId);
+                queueLock.notify();
+            }
+        }
+    }
+
+    private void run(SyncJob job) {
+        job.status = JobStatus.RUNNING;
+        job.startedAt = Instant.now();
+        try {
+            job.result = externalCalendarService.syncEvents(job.userId, job.events, job.snapshotCalendarIds);
+            job.status = JobStatus.COMPLETED;
+        } catch (Exception e) {
+            log.error("Error en la sincronización {}: {}", job.id, e.getMessage());
+            job.error = e.getMessage();
+            job.status = JobStatus.FAILED;
+        } finally {
+            job.finishedAt = Instant.now();
+            // Liberar el payload: solo se conserva el resultado
+            job.events = null;
+        }
+        log.info("Sincronización {} terminada con estado {}", job.id, job.status);
+    }
+
+    private void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(jobRetentionMinutes));
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    /**
+     * Identidad de un payload: usuario, calendarios snapshot y eventos (por igualdad de contenido)
+     * El hash se calcula una vez; equals solo recorre los eventos si los hashes coinciden.
+     */
+    private static final class JobKey {
+        private final Long userId;
+        private final Set<Long> snapshotCalendarIds;
+        private final List<SyncEventRequest> events;
+        private final int hash;
+
+        private JobKey(Long userId, Set<Long> snapshotCalendarIds, List<SyncEventRequest> events) {
+            this.userId = userId;
+            this.snapshotCalendarIds = snapshotCalendarIds;
+            this.events = events;
+            this.hash = Objects.hash(userId, snapshotCalendarIds, events);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof JobKey)) {
+                return false;
+            }
+            JobKey that = (JobKey) other;
+            return hash == that.hash
+                && userId.equals(that.userId)
+                && snapshotCalendarIds.equals(that.snapshotCalendarIds)
+                && events.equals(that.events);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class SyncJob {
+        private final String id;
+        private final Long userId;
+        // Se suelta al terminar junto con el payload
+        private JobKey key;
+        private final Set<Long> snapshotCalendarIds;
+        private final int eventCount;
+        private final Instant createdAt = Instant.now();
+        private volatile List<SyncEventRequest> events;
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile Map<String, Object> result;
+        private volatile String error;
+
+        private SyncJob(String id, Long userId, List<SyncEventRequest> events, Set<Long> snapshotCalendarIds) {
+            this.id = id;
+            this.userId = userId;
+            this.events = events;
+            this.eventCount = events.size();
+            this.snapshotCalendarIds = snapshotCalendarIds;
+            this.key = new JobKey(userId, snapshotCalendarIds, events);
+        }
+
+        private SyncJobResponse toResponse() {
+            return SyncJobResponse.builder()
+                .jobId(id)
+                .userId(userId)
+                .status(status.name())
+                .eventCount(eventCount)
+                .createdAt(createdAt)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .result(result)
+                .error(error)
+                .build();
+        }
+    }
+}
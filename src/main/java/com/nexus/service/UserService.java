@@ -10,7 +10,9 @@ import com.nexus.repository.UserProfileRepository;
 import com.nexus.repository.VerificationTokenRepository;
 import com.nexus.repository.LinkRepository;
 import com.nexus.repository.LinkCodeRepository;
+import com.nexus.repository.EventRepository;
 import com.nexus.util.LinkCodeGenerator;
+import com.nexus.util.TransactionHooks;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +25,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.regex.Pattern;
@@ -39,7 +42,11 @@ public class UserService {
     private final LinkRepository linkRepository;
     private final LinkCodeRepository linkCodeRepository;
     private final PasswordEncoder passwordEncoder;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
+    private final ResourceVersions resourceVersions;
+    private final AvailabilityIndex availabilityIndex;
+    private final EventRepository eventRepository;
+    private final ReminderDispatcher reminderDispatcher;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -83,18 +90,9 @@ public class UserService {
         // Crear token de verificación de email
         VerificationToken verificationToken = createEmailVerificationToken(user);
         
-        // Enviar email de verificación de forma asíncrona
+        // Encolar email de verificación: se envía tras el commit
         // Esto no bloqueará la respuesta del registro
-        final String userEmail = user.getEmail();
-        final String tokenCode = verificationToken.getToken();
-        new Thread(() -> {
-            try {
-                emailService.sendVerificationEmail(userEmail, tokenCode);
-                log.info("Email de verificación enviado a: {}", userEmail);
-            } catch (Exception e) {
-                log.error("Error al enviar email de verificación a {}: {}", userEmail, e.getMessage());
-            }
-        }).start();
+        emailOutboxService.enqueueVerification(user.getEmail(), verificationToken.getToken());
         
         log.info("Registro completado exitosamente para usuario: {}", user.getEmail());
         
@@ -264,17 +262,8 @@ public class UserService {
         // Crear nuevo token de verificación
         VerificationToken newToken = createEmailVerificationToken(user);
         
-        // Enviar email de forma asíncrona
-        final String userEmail = user.getEmail();
-        final String tokenCode = newToken.getToken();
-        new Thread(() -> {
-            try {
-                emailService.sendVerificationEmail(userEmail, tokenCode);
-                log.info("Email de verificación reenviado a: {}", userEmail);
-            } catch (Exception e) {
-                log.error("Error al reenviar email de verificación a {}: {}", userEmail, e.getMessage());
-            }
-        }).start();
+        // Encolar email: se envía tras el commit
+        emailOutboxService.enqueueVerification(user.getEmail(), newToken.getToken());
         
         log.info("Código de verificación generado para: {}", email);
     }
@@ -319,16 +308,8 @@ public class UserService {
         
         verificationTokenRepository.save(resetToken);
         
-        // Enviar email de recuperación de forma asíncrona
-        final String userEmail = user.getEmail();
-        new Thread(() -> {
-            try {
-                emailService.sendPasswordResetEmail(userEmail, resetCode);
-                log.info("Email de recuperación enviado a: {}", userEmail);
-            } catch (Exception e) {
-                log.error("Error al enviar email de recuperación a {}: {}", userEmail, e.getMessage());
-            }
-        }).start();
+        // Encolar email de recuperación: se envía tras el commit
+        emailOutboxService.enqueuePasswordReset(user.getEmail(), resetCode);
         
         log.info("Código de recuperación generado para: {}", email);
     }
@@ -378,16 +359,8 @@ public class UserService {
             
             verificationTokenRepository.save(newToken);
             
-            // Enviar email con el nuevo código
-            final String userEmail = user.getEmail();
-            new Thread(() -> {
-                try {
-                    emailService.sendPasswordResetEmail(userEmail, newResetCode);
-                    log.info("Nuevo código de recuperación enviado a: {}", userEmail);
-                } catch (Exception e) {
-                    log.error("Error al enviar nuevo código a {}: {}", userEmail, e.getMessage());
-                }
-            }).start();
+            // Encolar email con el nuevo código
+            emailOutboxService.enqueuePasswordReset(user.getEmail(), newResetCode);
             
             // Retornar mensaje especial para código expirado
             return "EXPIRED_NEW_CODE_SENT";
@@ -541,6 +514,9 @@ public class UserService {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new BadRequestException("Usuario no encontrado"));
         
+        // El perfil aparece en el estado del vínculo y en los eventos de la pareja
+        invalidateLinkViews(userId);
+        
         // RN-01: Validar que el usuario sea mayor de edad (18 años)
         LocalDate today = LocalDate.now();
         int age = Period.between(request.getBirthDate(), today).getYears();
@@ -575,17 +551,8 @@ public class UserService {
             // Crear nuevo token de verificación
             VerificationToken verificationToken = createEmailVerificationToken(user);
             
-            // Enviar email de verificación de forma asíncrona
-            final String userEmail = user.getEmail();
-            final String tokenCode = verificationToken.getToken();
-            new Thread(() -> {
-                try {
-                    emailService.sendVerificationEmail(userEmail, tokenCode);
-                    log.info("Email de verificación enviado a: {}", userEmail);
-                } catch (Exception e) {
-                    log.error("Error al enviar email de verificación a {}: {}", userEmail, e.getMessage());
-                }
-            }).start();
+            // Encolar email de verificación: se envía tras el commit
+            emailOutboxService.enqueueVerification(user.getEmail(), verificationToken.getToken());
             
             log.info("Email cambiado de {} a {}. Verificación pendiente.", oldEmail, newEmail);
         }
@@ -621,6 +588,8 @@ public class UserService {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new BadRequestException("Usuario no encontrado"));
         
+        invalidateLinkViews(userId);
+        
         // Parsear la imagen Base64
         String base64Data = request.getImageBase64();
         
@@ -710,6 +679,8 @@ public class UserService {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new BadRequestException("Usuario no encontrado"));
         
+        invalidateLinkViews(userId);
+        
         // Buscar perfil
         UserProfile profile = userProfileRepository.findById(userId).orElse(null);
         
@@ -756,12 +727,22 @@ public class UserService {
         }
         
         String deletedEmail = user.getEmail();
+        invalidateLinkViews(userId);
         
         try {
             // RN-07: Eliminar todos los datos asociados de forma irreversible
             
             // 1. Eliminar vínculos activos donde el usuario participa
+            // (sus eventos se borran en cascada: dejan de ocupar tiempo de quien los creó)
+            List<Long> creatorIds = eventRepository.findCreatorIdsByLinkMember(userId);
+            List<Long> eventIds = eventRepository.findIdsByLinkMember(userId);
             linkRepository.deleteByInitiatorUserIdOrPartnerUserId(userId, userId);
+            TransactionHooks.afterCommit(() -> {
+                availabilityIndex.invalidate(userId);
+                creatorIds.forEach(availabilityIndex::invalidate);
+                // La pareja seguiría recibiendo los recordatorios de los eventos borrados
+                eventIds.forEach(reminderDispatcher::cancel);
+            });
             log.info("Vínculos eliminados para usuario ID: {}", userId);
             
             // 2. Eliminar códigos de vínculo generados por el usuario
@@ -796,6 +777,13 @@ public class UserService {
         }
     }
     
+    /**
+     * Invalidar los ETag de estado del vínculo y calendario de ambos miembros
+     */
+    private void invalidateLinkViews(Long userId) {
+        linkRepository.findActiveLinkByUserId(userId).ifPresent(resourceVersions::bumpLinkMembers);
+    }
+    
     /**
      * Actualiza el token FCM del usuario para notificaciones push
      * @param userId ID del usuario
@@ -0,0 +1,88 @@
+package com.nexus.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché en memoria cuyas cargas se descartan si la clave cambia mientras tanto
+ *
+ * Cada clave tiene una generación que avanzan invalidate() y update(). Una
+ * carga anota la generación antes de consultar y solo publica su resultado si
+ * sigue siendo la misma, así que un cambio confirmado durante la consulta
+ * nunca queda tapado por un valor viejo. Al llegar a maxEntries se vacía
+ * entera: las claves calientes se recargan enseguida.
+ *
+ * Las generaciones se conservan aunque el valor se descarte.
+ */
+public final class GenerationGuardedCache<K, V> {
+
+    private final int maxEntries;
+    private final Map<K, V> values = new ConcurrentHashMap<>();
+    private final Map<K, Long> generations = new ConcurrentHashMap<>();
+
+    public GenerationGuardedCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public V getIfPresent(K key) {
+        return values.get(key);
+    }
+
+    /**
+     * Valor en memoria o, si no está, el que devuelve el cargador
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V cached = values.get(key);
+        return cached != null ? cached : load(key, loader);
+    }
+
+    /**
+     * Cargar siempre (p. ej. si el valor en memoria ya no sirve) y publicar el
+     * resultado si la clave no cambió durante la carga; se devuelve igualmente
+     */
+    public V load(K key, Function<? super K, ? extends V> loader) {
+        long generation = generations.getOrDefault(key, 0L);
+        V loaded = loader.apply(key);
+        if (loaded == null) {
+            return null;
+        }
+        if (values.size() >= maxEntries) {
+            values.clear();
+        }
+        generations.compute(key, (k, current) -> {
+            long now = current == null ? 0L : current;
+            if (now == generation) {
+                values.put(k, loaded);
+            }
+            return current;
+        });
+        return loaded;
+    }
+
+    /**
+     * Aplicar un cambio incremental al valor en memoria (si lo hay) y avanzar la generación
+     */
+    public void update(K key, UnaryOperator<V> updater) {
+        generations.compute(key, (k, generation) -> {
+            values.computeIfPresent(k, (ignored, value) -> updater.apply(value));
+            return generation == null ? 1L : generation + 1;
+        });
+    }
+
+    public void invalidate(K key) {
+        generations.compute(key, (k, generation) -> {
+            values.remove(k);
+            return generation == null ? 1L : generation + 1;
+        });
+    }
+
+    public void invalidateAll() {
+        values.keySet().forEach(this::invalidate);
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,104 @@
+package com.nexus.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plantilla de texto precompilada con marcadores {{nombre}}
+ *
+ * El texto se analiza una sola vez en literales y ranuras: renderizar solo
+ * concatena segmentos, sin buscar marcadores ni crear cadenas intermedias.
+ * bind() fija los valores que no cambian entre envíos (nombre de la app,
+ * logo...) y devuelve una plantilla con esas ranuras fundidas en los literales.
+ * Es inmutable y se puede compartir entre hilos.
+ */
+public final class HtmlTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    // literals.length == slots.length + 1: literal, ranura, literal, ranura, ..., literal
+    private final String[] literals;
+    private final String[] slots;
+    private final int literalLength;
+
+    private HtmlTemplate(String[] literals, String[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static HtmlTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Marcador sin cerrar en la posición " + open);
+            }
+            literals.add(source.substring(position, open));
+            slots.add(source.substring(open + OPEN.length(), close).trim());
+            position = close + CLOSE.length();
+        }
+        literals.add(source.substring(position));
+        return new HtmlTemplate(literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    /**
+     * Fijar parte de los valores; las ranuras no incluidas siguen abiertas
+     */
+    public HtmlTemplate bind(Map<String, String> values) {
+        List<String> newLiterals = new ArrayList<>();
+        List<String> newSlots = new ArrayList<>();
+        StringBuilder current = new StringBuilder(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            String value = values.get(slots[i]);
+            if (value != null) {
+                current.append(value).append(literals[i + 1]);
+            } else {
+                newLiterals.add(current.toString());
+                newSlots.add(slots[i]);
+                current.setLength(0);
+                current.append(literals[i + 1]);
+            }
+        }
+        newLiterals.add(current.toString());
+        return new HtmlTemplate(newLiterals.toArray(new String[0]), newSlots.toArray(new String[0]));
+    }
+
+    /**
+     * Renderizar en el buffer dado; los valores ausentes se dejan vacíos
+     */
+    public void renderTo(StringBuilder out, Map<String, String> values) {
+        out.ensureCapacity(out.length() + literalLength + 16 * slots.length);
+        out.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            String value = values.get(slots[i]);
+            if (value != null) {
+                out.append(value);
+            }
+            out.append(literals[i + 1]);
+        }
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder out = new StringBuilder(literalLength + 16 * slots.length);
+        renderTo(out, values);
+        return out.toString();
+    }
+
+    public List<String> getSlots() {
+        return Arrays.asList(slots.clone());
+    }
+}
@@ -0,0 +1,196 @@
+package com.nexus.util;
+
+import java.util.Arrays;
+
+/**
+ * Álgebra de intervalos semiabiertos [inicio, fin) sobre milisegundos epoch
+ *
+ * Un conjunto normalizado se representa como un long[] plano
+ * {s0, e0, s1, e1, ...} ordenado, sin solapes ni intervalos contiguos.
+ * Todas las operaciones son lineales sobre conjuntos normalizados, salvo
+ * la unión de intervalos sueltos que ordena una sola vez (O(n log n)).
+ */
+public final class IntervalSet {
+
+    public static final long[] EMPTY = new long[0];
+
+    private IntervalSet() {
+    }
+
+    /**
+     * Une intervalos sueltos (posiblemente solapados y desordenados)
+     * Ordena inicios y fines por separado y recorre ambos con un contador de
+     * profundidad; en empate se procesa primero el inicio para fusionar
+     * intervalos contiguos.
+     */
+    public static long[] union(long[] starts, long[] ends, int count) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        long[] s = Arrays.copyOf(starts, count);
+        long[] e = Arrays.copyOf(ends, count);
+        Arrays.sort(s);
+        Arrays.sort(e);
+
+        long[] out = new long[count * 2];
+        int size = 0;
+        int depth = 0;
+        int i = 0;
+        int j = 0;
+        while (j < count) {
+            if (i < count && s[i] <= e[j]) {
+                if (depth++ == 0) {
+                    out[size++] = s[i];
+                }
+                i++;
+            } else {
+                if (--depth == 0) {
+                    out[size++] = e[j];
+                }
+                j++;
+            }
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Unión de dos conjuntos normalizados (merge lineal)
+     */
+    public static long[] union(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            long start;
+            long end;
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                start = a[i];
+                end = a[i + 1];
+                i += 2;
+            } else {
+                start = b[j];
+                end = b[j + 1];
+                j += 2;
+            }
+            if (size > 0 && start <= out[size - 1]) {
+                out[size - 1] = Math.max(out[size - 1], end);
+            } else {
+                out[size++] = start;
+                out[size++] = end;
+            }
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Intersección de dos conjuntos normalizados (dos punteros)
+     */
+    public static long[] intersect(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            long start = Math.max(a[i], b[j]);
+            long end = Math.min(a[i + 1], b[j + 1]);
+            if (start < end) {
+                out[size++] = start;
+                out[size++] = end;
+            }
+            // Avanzar el intervalo que termina primero
+            if (a[i + 1] < b[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Complemento de un conjunto normalizado dentro de la ventana [from, to)
+     */
+    public static long[] complement(long[] set, long from, long to) {
+        if (from >= to) {
+            return EMPTY;
+        }
+        long[] out = new long[set.length + 2];
+        int size = 0;
+        long cursor = from;
+        for (int i = 0; i < set.length && cursor < to; i += 2) {
+            if (set[i + 1] <= cursor) {
+                continue;
+            }
+            long gapEnd = Math.min(set[i], to);
+            if (gapEnd > cursor) {
+                out[size++] = cursor;
+                out[size++] = gapEnd;
+            }
+            cursor = Math.max(cursor, set[i + 1]);
+        }
+        if (cursor < to) {
+            out[size++] = cursor;
+            out[size++] = to;
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Conserva solo los intervalos de al menos minMillis de duración
+     */
+    public static long[] withMinDuration(long[] set, long minMillis) {
+        long[] out = new long[set.length];
+        int size = 0;
+        for (int i = 0; i < set.length; i += 2) {
+            if (set[i + 1] - set[i] >= minMillis) {
+                out[size++] = set[i];
+                out[size++] = set[i + 1];
+            }
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Acumulador de intervalos sueltos en arreglos primitivos que crecen
+     * bajo demanda; descarta intervalos vacíos o invertidos
+     */
+    public static final class Builder {
+
+        private long[] starts;
+        private long[] ends;
+        private int count;
+
+        public Builder() {
+            this(64);
+        }
+
+        public Builder(int initialCapacity) {
+            int capacity = Math.max(initialCapacity, 1);
+            this.starts = new long[capacity];
+            this.ends = new long[capacity];
+        }
+
+        public Builder add(long start, long end) {
+            if (end <= start) {
+                return this;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+            return this;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public long[] union() {
+            return IntervalSet.union(starts, ends, count);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.nexus.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginación keyset sobre la clave (instante, id)
+ * Se serializa como Base64 URL-safe de "instanteISO|id" para que el cliente
+ * lo trate como un token y no dependa de su formato
+ */
+public class KeysetCursor {
+    
+    private static final char SEPARATOR = '|';
+    
+    private final Instant instant;
+    private final Long id;
+    
+    private KeysetCursor(Instant instant, Long id) {
+        this.instant = instant;
+        this.id = id;
+    }
+    
+    public static String encode(Instant instant, Long id) {
+        String raw = instant.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decodifica un cursor recibido del cliente
+     * @throws IllegalArgumentException si el cursor no tiene un formato válido
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new KeysetCursor(
+                Instant.parse(raw.substring(0, separator)),
+                Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+    
+    public Instant getInstant() {
+        return instant;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+}
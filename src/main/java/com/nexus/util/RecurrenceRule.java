@@ -0,0 +1,464 @@
+package com.nexus.util;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Regla RRULE (RFC 5545) compilada e inmutable.
+ * Soporta FREQ (DAILY, WEEKLY, MONTHLY, YEARLY), INTERVAL, BYDAY (con ordinal en MONTHLY),
+ * BYMONTHDAY (incluye valores negativos), COUNT y UNTIL. Las fechas se evalúan en la zona
+ * horaria de la serie (RFC 5545): el día de la semana y la hora local se conservan a través
+ * de los cambios de horario.
+ * La expansión es perezosa: el iterador sólo genera instancias dentro de la ventana pedida.
+ */
+public final class RecurrenceRule {
+
+    // Límite de periodos recorridos por iterador (evita bucles con reglas que nunca coinciden)
+    private static final int MAX_PERIODS_SCANNED = 50_000;
+
+    private static final DateTimeFormatter UNTIL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss[X]");
+    private static final DateTimeFormatter UNTIL_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    public enum Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY,
+        YEARLY
+    }
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Integer count;
+    private final Instant until;
+    private final DayOfWeek[] byDay;
+    private final int[] byDayOrdinal; // 0 = todas las apariciones del día en el periodo
+    private final int[] byMonthDay;
+
+    private RecurrenceRule(Frequency frequency, int interval, Integer count, Instant until,
+                           DayOfWeek[] byDay, int[] byDayOrdinal, int[] byMonthDay) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.byDay = byDay;
+        this.byDayOrdinal = byDayOrdinal;
+        this.byMonthDay = byMonthDay;
+    }
+
+    /**
+     * Compila una cadena RRULE, con o sin el prefijo "RRULE:"
+     * @throws IllegalArgumentException si la regla no es válida o usa una frecuencia no soportada
+     */
+    public static RecurrenceRule parse(String rrule) {
+        if (rrule == null || rrule.isBlank()) {
+            throw new IllegalArgumentException("RRULE vacía");
+        }
+
+        String body = rrule.trim();
+        if (body.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            body = body.substring(6);
+        }
+
+        Frequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        Instant until = null;
+        DayOfWeek[] byDay = new DayOfWeek[0];
+        int[] byDayOrdinal = new int[0];
+        int[] byMonthDay = new int[0];
+
+        for (String part : body.split(";")) {
+            int eq = part.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            String name = part.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+            String value = part.substring(eq + 1).trim().toUpperCase(Locale.ROOT);
+
+            switch (name) {
+                case "FREQ":
+                    try {
+                        frequency = Frequency.valueOf(value);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("FREQ no soportada: " + value);
+                    }
+                    break;
+                case "INTERVAL":
+                    interval = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "COUNT":
+                    count = Integer.parseInt(value);
+                    break;
+                case "UNTIL":
+                    until = parseUntil(value);
+                    break;
+                case "BYDAY": {
+                    String[] days = value.split(",");
+                    byDay = new DayOfWeek[days.length];
+                    byDayOrdinal = new int[days.length];
+                    for (int i = 0; i < days.length; i++) {
+                        String day = days[i].trim();
+                        String code = day.substring(day.length() - 2);
+                        String ordinal = day.substring(0, day.length() - 2);
+                        byDay[i] = parseDay(code);
+                        byDayOrdinal[i] = ordinal.isEmpty() ? 0 : Integer.parseInt(ordinal.replace("+", ""));
+                    }
+                    break;
+                }
+                case "BYMONTHDAY": {
+                    String[] days = value.split(",");
+                    byMonthDay = new int[days.length];
+                    for (int i = 0; i < days.length; i++) {
+                        byMonthDay[i] = Integer.parseInt(days[i].trim());
+                    }
+                    break;
+                }
+                default:
+                    // WKST, BYMONTH, BYSETPOS, etc. no se usan en los calendarios sincronizados
+                    break;
+            }
+        }
+
+        if (frequency == null) {
+            throw new IllegalArgumentException("RRULE sin FREQ: " + rrule);
+        }
+
+        return new RecurrenceRule(frequency, interval, count, until, byDay, byDayOrdinal, byMonthDay);
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public Instant getUntil() {
+        return until;
+    }
+
+    /**
+     * Itera perezosamente los inicios de instancia que caen en [notBefore, before).
+     *
+     * @param dtstart    inicio de la serie (siempre es la primera instancia)
+     * @param zone       zona horaria de la serie (TZID de DTSTART)
+     * @param notBefore  primer inicio de interés (normalmente inicio de ventana menos la duración)
+     * @param before     fin exclusivo de la ventana
+     * @param untilLimit UNTIL adicional (p. ej. columna rrule_until_utc), puede ser null
+     * @param countLimit COUNT adicional (p. ej. columna rrule_count), puede ser null
+     */
+    public Iterator<Instant> iterator(Instant dtstart, ZoneId zone, Instant notBefore, Instant before,
+                                      Instant untilLimit, Integer countLimit) {
+        Instant effectiveUntil = min(until, untilLimit);
+        Integer effectiveCount = count != null ? count : countLimit;
+        return new InstanceIterator(dtstart, zone, notBefore, before, effectiveUntil, effectiveCount);
+    }
+
+    private final class InstanceIterator implements Iterator<Instant> {
+        private final ZoneId zone;
+        private final ZonedDateTime start;
+        private final LocalTime timeOfDay;
+        private final Instant dtstart;
+        private final Instant notBefore;
+        private final Instant before;
+        private final Instant until;
+        private final Integer count;
+
+        private long period;
+        private int periodsScanned;
+        private int emittedTotal;
+        private List<Instant> buffer = new ArrayList<>();
+        private int bufferPos;
+        private boolean exhausted;
+        private Instant next;
+
+        InstanceIterator(Instant dtstart, ZoneId zone, Instant notBefore, Instant before, Instant until, Integer count) {
+            this.zone = zone;
+            this.start = dtstart.atZone(zone);
+            this.timeOfDay = start.toLocalTime();
+            this.dtstart = dtstart;
+            this.notBefore = notBefore;
+            this.before = before;
+            this.until = until;
+            this.count = count;
+            // Sin COUNT no hace falta contar desde el inicio: saltar al periodo de la ventana
+            this.period = count == null ? firstUsefulPeriod() : 0;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Instant next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Instant current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (!exhausted) {
+                if (bufferPos >= buffer.size()) {
+                    if (!fillNextPeriod()) {
+                        exhausted = true;
+                        return;
+                    }
+                    continue;
+                }
+
+                Instant candidate = buffer.get(bufferPos++);
+                if (candidate.isBefore(dtstart)) {
+                    continue;
+                }
+                if ((until != null && candidate.isAfter(until))
+                        || (count != null && emittedTotal >= count)
+                        || !candidate.isBefore(before)) {
+                    exhausted = true;
+                    return;
+                }
+                emittedTotal++;
+                if (!candidate.isBefore(notBefore)) {
+                    next = candidate;
+                    return;
+                }
+            }
+        }
+
+        private boolean fillNextPeriod() {
+            if (periodsScanned++ >= MAX_PERIODS_SCANNED) {
+                return false;
+            }
+            LocalDate periodStart = periodStart(period++);
+            if (!periodStart.atStartOfDay(zone).toInstant().isBefore(before)) {
+                return false;
+            }
+
+            List<LocalDate> dates = candidatesIn(periodStart);
+            buffer = new ArrayList<>(dates.size() + 1);
+            for (LocalDate date : dates) {
+                // Una hora local inexistente (salto de horario) se desplaza hacia delante
+                buffer.add(ZonedDateTime.of(date, timeOfDay, zone).toInstant());
+            }
+            // DTSTART siempre es la primera instancia aunque no coincida con la regla
+            if (period == 1 && !buffer.contains(dtstart)) {
+                buffer.add(0, dtstart);
+            }
+            bufferPos = 0;
+            return true;
+        }
+
+        private long firstUsefulPeriod() {
+            if (!notBefore.isAfter(dtstart)) {
+                return 0;
+            }
+            LocalDate from = LocalDate.ofInstant(notBefore, zone);
+            LocalDate origin = periodStart(0);
+            long units;
+            switch (frequency) {
+                case DAILY:
+                    units = ChronoUnit.DAYS.between(origin, from);
+                    break;
+                case WEEKLY:
+                    units = ChronoUnit.WEEKS.between(origin, from);
+                    break;
+                case MONTHLY:
+                    units = ChronoUnit.MONTHS.between(origin, from);
+                    break;
+                default:
+                    units = ChronoUnit.YEARS.between(origin, from);
+                    break;
+            }
+            // Un periodo de margen; el primer periodo nunca se salta para conservar DTSTART
+            return Math.max(0, units / interval - 1);
+        }
+
+        private LocalDate periodStart(long index) {
+            LocalDate date = start.toLocalDate();
+            long step = index * interval;
+            switch (frequency) {
+                case DAILY:
+                    return date.plusDays(step);
+                case WEEKLY:
+                    return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusWeeks(step);
+                case MONTHLY:
+                    return date.withDayOfMonth(1).plusMonths(step);
+                default:
+                    return date.withDayOfYear(1).plusYears(step);
+            }
+        }
+
+        private List<LocalDate> candidatesIn(LocalDate periodStart) {
+            List<LocalDate> dates = new ArrayList<>();
+            switch (frequency) {
+                case DAILY:
+                    if (matchesDay(periodStart) && matchesMonthDay(periodStart)) {
+                        dates.add(periodStart);
+                    }
+                    break;
+                case WEEKLY:
+                    if (byDay.length == 0) {
+                        dates.add(periodStart.with(TemporalAdjusters.nextOrSame(start.getDayOfWeek())));
+                    } else {
+                        for (int i = 0; i < 7; i++) {
+                            LocalDate date = periodStart.plusDays(i);
+                            if (matchesDay(date)) {
+                                dates.add(date);
+                            }
+                        }
+                    }
+                    break;
+                case MONTHLY:
+                    monthlyCandidates(YearMonth.from(periodStart), dates);
+                    break;
+                default:
+                    // YEARLY: misma fecha de DTSTART cada año (se omite el 29/02 en años no bisiestos)
+                    int year = periodStart.getYear();
+                    if (start.getMonthValue() != 2 || start.getDayOfMonth() != 29 || periodStart.isLeapYear()) {
+                        dates.add(LocalDate.of(year, start.getMonth(), start.getDayOfMonth()));
+                    }
+                    break;
+            }
+            return dates;
+        }
+
+        private void monthlyCandidates(YearMonth month, List<LocalDate> dates) {
+            int length = month.lengthOfMonth();
+
+            if (byMonthDay.length > 0) {
+                int[] days = new int[byMonthDay.length];
+                int n = 0;
+                for (int day : byMonthDay) {
+                    int resolved = day > 0 ? day : length + day + 1;
+                    if (resolved >= 1 && resolved <= length) {
+                        days[n++] = resolved;
+                    }
+                }
+                Arrays.sort(days, 0, n);
+                for (int i = 0; i < n; i++) {
+                    if (i > 0 && days[i] == days[i - 1]) {
+                        continue;
+                    }
+                    LocalDate date = month.atDay(days[i]);
+                    if (matchesDay(date)) {
+                        dates.add(date);
+                    }
+                }
+                return;
+            }
+
+            if (byDay.length > 0) {
+                for (int day = 1; day <= length; day++) {
+                    LocalDate date = month.atDay(day);
+                    if (matchesOrdinalDay(date, length)) {
+                        dates.add(date);
+                    }
+                }
+                return;
+            }
+
+            // Sin BY*: el día del mes de DTSTART (los meses sin ese día se omiten)
+            if (start.getDayOfMonth() <= length) {
+                dates.add(month.atDay(start.getDayOfMonth()));
+            }
+        }
+
+        private boolean matchesDay(LocalDate date) {
+            if (byDay.length == 0) {
+                return true;
+            }
+            for (DayOfWeek day : byDay) {
+                if (day == date.getDayOfWeek()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesOrdinalDay(LocalDate date, int monthLength) {
+            for (int i = 0; i < byDay.length; i++) {
+                if (byDay[i] != date.getDayOfWeek()) {
+                    continue;
+                }
+                int ordinal = byDayOrdinal[i];
+                if (ordinal == 0) {
+                    return true;
+                }
+                int fromStart = (date.getDayOfMonth() - 1) / 7 + 1;
+                int fromEnd = -((monthLength - date.getDayOfMonth()) / 7 + 1);
+                if (ordinal == fromStart || ordinal == fromEnd) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesMonthDay(LocalDate date) {
+            if (byMonthDay.length == 0) {
+                return true;
+            }
+            int length = date.lengthOfMonth();
+            for (int day : byMonthDay) {
+                int resolved = day > 0 ? day : length + day + 1;
+                if (resolved == date.getDayOfMonth()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static Instant parseUntil(String value) {
+        if (value.length() == 8) {
+            // Fecha sin hora: incluye todo el día
+            return LocalDate.parse(value, UNTIL_DATE).atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC);
+        }
+        String normalized = value.endsWith("Z") ? value : value + "Z";
+        return ZonedDateTime.parse(normalized, UNTIL_DATE_TIME.withZone(ZoneOffset.UTC)).toInstant();
+    }
+
+    private static DayOfWeek parseDay(String code) {
+        switch (code) {
+            case "MO": return DayOfWeek.MONDAY;
+            case "TU": return DayOfWeek.TUESDAY;
+            case "WE": return DayOfWeek.WEDNESDAY;
+            case "TH": return DayOfWeek.THURSDAY;
+            case "FR": return DayOfWeek.FRIDAY;
+            case "SA": return DayOfWeek.SATURDAY;
+            case "SU": return DayOfWeek.SUNDAY;
+            default:
+                throw new IllegalArgumentException("Día BYDAY inválido: " + code);
+        }
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,151 @@
+package com.nexus.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rueda de tiempo jerárquica (hashed hierarchical timing wheel)
+ *
+ * LEVELS ruedas de WHEEL_SIZE ranuras: el nivel 0 avanza un tick por ranura,
+ * el nivel 1 cubre WHEEL_SIZE ticks por ranura, y así sucesivamente. Una entrada
+ * se coloca en el nivel más bajo que alcanza su vencimiento; cuando el nivel 0
+ * da la vuelta, la ranura correspondiente del nivel superior se redistribuye
+ * hacia abajo. Insertar y cancelar son O(1); avanzar cuesta O(1) por tick más
+ * las entradas que vencen o bajan de nivel.
+ *
+ * No es thread-safe: el llamador debe sincronizar.
+ */
+public class TimingWheel<K, V> {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final List<List<Map<K, Entry<K, V>>>> wheels = new ArrayList<>(LEVELS);
+    // Entradas más allá del último nivel; se recolocan cuando gira el nivel superior
+    private final Map<K, Entry<K, V>> overflow = new LinkedHashMap<>();
+    private final Map<K, Entry<K, V>> index = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (int level = 0; level < LEVELS; level++) {
+            List<Map<K, Entry<K, V>>> slots = new ArrayList<>(WHEEL_SIZE);
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                slots.add(new LinkedHashMap<>());
+            }
+            wheels.add(slots);
+        }
+    }
+
+    /**
+     * Programar (o reprogramar) una entrada; si ya venció sale en el próximo avance
+     */
+    public void schedule(K key, long fireAtMillis, V value) {
+        cancel(key);
+        // Redondeo hacia arriba: nunca se dispara antes de tiempo
+        long expireTick = Math.max(currentTick + 1, (fireAtMillis + tickMillis - 1) / tickMillis);
+        Entry<K, V> entry = new Entry<>(key, expireTick, value);
+        index.put(key, entry);
+        place(entry);
+    }
+
+    public V cancel(K key) {
+        Entry<K, V> entry = index.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.bucket.remove(key);
+        return entry.value;
+    }
+
+    public boolean contains(K key) {
+        return index.containsKey(key);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Avanzar hasta nowMillis y devolver los valores vencidos en orden de tick
+     */
+    public List<V> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<V> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Map<K, Entry<K, V>> slot = wheels.get(0).get((int) (currentTick & WHEEL_MASK));
+            if (!slot.isEmpty()) {
+                for (Entry<K, V> entry : slot.values()) {
+                    index.remove(entry.key);
+                    expired.add(entry.value);
+                }
+                slot.clear();
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Bajar de nivel las ranuras que empiezan en el tick actual, de arriba hacia abajo
+     */
+    private void cascade() {
+        int top = 0;
+        while (top < LEVELS - 1 && ((currentTick >>> (WHEEL_BITS * (top + 1))) << (WHEEL_BITS * (top + 1))) == currentTick) {
+            top++;
+        }
+        if (top == LEVELS - 1 && !overflow.isEmpty()) {
+            List<Entry<K, V>> pending = new ArrayList<>(overflow.values());
+            overflow.clear();
+            pending.forEach(this::place);
+        }
+        for (int level = top; level >= 1; level--) {
+            int slotIndex = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            Map<K, Entry<K, V>> slot = wheels.get(level).get(slotIndex);
+            if (!slot.isEmpty()) {
+                List<Entry<K, V>> pending = new ArrayList<>(slot.values());
+                slot.clear();
+                pending.forEach(this::place);
+            }
+        }
+    }
+
+    /**
+     * Nivel más bajo cuya ventana de WHEEL_SIZE ranuras contiene el vencimiento
+     */
+    private void place(Entry<K, V> entry) {
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            long distance = (entry.expireTick >>> shift) - (currentTick >>> shift);
+            if (distance < WHEEL_SIZE) {
+                Map<K, Entry<K, V>> bucket = wheels.get(level).get((int) ((entry.expireTick >>> shift) & WHEEL_MASK));
+                bucket.put(entry.key, entry);
+                entry.bucket = bucket;
+                return;
+            }
+        }
+        overflow.put(entry.key, entry);
+        entry.bucket = overflow;
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final long expireTick;
+        private final V value;
+        private Map<K, Entry<K, V>> bucket;
+
+        private Entry(K key, long expireTick, V value) {
+            this.key = key;
+            this.expireTick = expireTick;
+            this.value = value;
+        }
+    }
+}
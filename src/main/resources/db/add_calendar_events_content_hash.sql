@@ -0,0 +1,10 @@
+-- Migration: Content hash on calendar_events
+-- Purpose: Detect the same event stored under several linked calendars of a user
+--          (normalized title, start, end, all-day and RRULE); rows written before
+--          this migration keep NULL and the hash is computed when read
+-- Date: 2026-10-XX
+
+USE `nexus`;
+
+ALTER TABLE `nexus`.`calendar_events`
+ADD COLUMN `content_hash` VARCHAR(44) NULL;
@@ -0,0 +1,8 @@
+-- Migration: deleted_at index on calendar_events
+-- Purpose: Let the scheduled purge of soft-deleted external events
+--          (DELETE ... WHERE deleted_at < ? LIMIT ?) use a range scan
+-- Date: 2026-10-XX
+
+USE `nexus`;
+
+CREATE INDEX `idx_ce_deleted_at` ON `nexus`.`calendar_events` (`deleted_at`);
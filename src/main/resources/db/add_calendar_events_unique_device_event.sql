@@ -0,0 +1,16 @@
+-- Migration: Unique (calendar_id, device_event_id) on calendar_events
+-- Purpose: Let external sync write with INSERT ... ON DUPLICATE KEY UPDATE batches
+-- Date: 2026-10-XX
+
+USE `nexus`;
+
+-- Remove duplicated device events, keeping the most recent row of each pair
+DELETE older FROM `nexus`.`calendar_events` older
+JOIN `nexus`.`calendar_events` newer
+  ON older.`calendar_id` = newer.`calendar_id`
+ AND older.`device_event_id` = newer.`device_event_id`
+ AND older.`id` < newer.`id`;
+
+-- Add unique key (also serves the per-calendar IN lookups of the sync)
+ALTER TABLE `nexus`.`calendar_events`
+ADD UNIQUE INDEX `uq_ce_calendar_device_event` (`calendar_id`, `device_event_id`);
@@ -0,0 +1,9 @@
+-- Migration: Per-calendar sync cursor
+-- Purpose: Delta sync protocol (/calendars/external/sync/{userId}/delta); the cursor
+--          advances every time the calendar's events change on the server
+-- Date: 2026-10-XX
+
+USE `nexus`;
+
+ALTER TABLE `nexus`.`calendars`
+ADD COLUMN `sync_cursor` BIGINT UNSIGNED NOT NULL DEFAULT 0;
@@ -0,0 +1,11 @@
+-- Migration: Keyset pagination indexes for events
+-- Purpose: Serve /events/user/{userId}/window and /pending-approval/page from an index range scan
+-- Date: 2026-10-XX
+
+USE `nexus`;
+
+-- Window listing ordered by (start_date_time, id) within a link
+CREATE INDEX `idx_events_link_start_id` ON `nexus`.`events` (`link_id`, `start_date_time`, `id`);
+
+-- Pending approval listing ordered by (created_at, id) within a link
+CREATE INDEX `idx_events_link_created_id` ON `nexus`.`events` (`link_id`, `created_at`, `id`);
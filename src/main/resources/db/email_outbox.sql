@@ -0,0 +1,32 @@
+-- Migration: Email outbox
+-- Purpose: Verification and password reset emails are written in the same
+--          transaction as their token and sent by a fixed pool of sender
+--          threads, with retries and dead-lettering
+-- Date: 2026-10-XX
+
+USE `nexus`;
+
+CREATE TABLE IF NOT EXISTS `nexus`.`email_outbox` (
+  `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT,
+  `type` VARCHAR(30) NOT NULL,
+  `recipient` VARCHAR(255) NOT NULL,
+  -- Cleared once sent: it carries the plaintext code
+  `payload` TEXT NULL DEFAULT NULL,
+  `status` VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+  `attempts` INT NOT NULL DEFAULT 0,
+  `next_attempt_at` DATETIME(3) NOT NULL,
+  `last_error` VARCHAR(500) NULL DEFAULT NULL,
+  `created_at` DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  `sent_at` DATETIME(3) NULL DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  -- Senders: pending rows that are due, oldest first
+  INDEX `idx_email_outbox_status_next` (`status` ASC, `next_attempt_at` ASC, `id` ASC) VISIBLE,
+  -- Purge of sent rows
+  INDEX `idx_email_outbox_status_sent` (`status` ASC, `sent_at` ASC) VISIBLE)
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8mb4
+COLLATE = utf8mb4_0900_ai_ci;
+
+-- Tables created before payloads were cleared on send
+ALTER TABLE `nexus`.`email_outbox`
+  MODIFY COLUMN `payload` TEXT NULL DEFAULT NULL;
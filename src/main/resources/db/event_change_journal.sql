@@ -0,0 +1,31 @@
+-- Migration: Event change journal
+-- Purpose: Append-only per-link log of event upserts and deletes so clients can
+--          sync deltas since a sequence number, including hard deletes
+-- Date: 2026-10-XX
+
+USE `nexus`;
+
+-- Per-link sequence; incrementing it row-locks the link so journal order
+-- matches commit order. journal_floor_seq is the highest sequence removed by
+-- compaction: clients behind it must resync.
+ALTER TABLE `nexus`.`user_links`
+  ADD COLUMN `change_seq` BIGINT NOT NULL DEFAULT 0,
+  ADD COLUMN `journal_floor_seq` BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS `nexus`.`event_change_journal` (
+  `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT,
+  `link_id` BIGINT UNSIGNED NOT NULL,
+  `seq` BIGINT NOT NULL,
+  `event_id` BIGINT UNSIGNED NOT NULL,
+  `op` VARCHAR(10) NOT NULL,
+  `changed_at` DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY (`id`),
+  -- Delta reads: changes of a link after a sequence
+  UNIQUE INDEX `uk_journal_link_seq` (`link_id` ASC, `seq` ASC) VISIBLE,
+  -- Compaction: later entries for the same event
+  INDEX `idx_journal_link_event_seq` (`link_id` ASC, `event_id` ASC, `seq` ASC) VISIBLE,
+  -- Compaction: expired tombstones
+  INDEX `idx_journal_op_changed` (`op` ASC, `changed_at` ASC) VISIBLE)
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8mb4
+COLLATE = utf8mb4_0900_ai_ci;
@@ -0,0 +1,25 @@
+-- Migration: Notification outbox
+-- Purpose: Notifications are written in the same transaction as the change that
+--          triggers them and delivered by a background relay after commit
+-- Date: 2026-10-XX
+
+USE `nexus`;
+
+CREATE TABLE IF NOT EXISTS `nexus`.`notification_outbox` (
+  `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT,
+  `type` VARCHAR(30) NOT NULL,
+  `payload` TEXT NOT NULL,
+  `status` VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+  `attempts` INT NOT NULL DEFAULT 0,
+  `next_attempt_at` DATETIME(3) NOT NULL,
+  `last_error` VARCHAR(500) NULL DEFAULT NULL,
+  `created_at` DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  `sent_at` DATETIME(3) NULL DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  -- Relay: pending rows that are due, oldest first
+  INDEX `idx_outbox_status_next` (`status` ASC, `next_attempt_at` ASC, `id` ASC) VISIBLE,
+  -- Purge of sent rows
+  INDEX `idx_outbox_status_sent` (`status` ASC, `sent_at` ASC) VISIBLE)
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8mb4
+COLLATE = utf8mb4_0900_ai_ci;
@@ -0,0 +1,19 @@
+-- Migration: Pending approval counters
+-- Purpose: Per-user count of events waiting for that user's approval, kept up to
+--          date by EventService so the pending-count poll is a primary key lookup
+-- Date: 2026-10-XX
+
+USE `nexus`;
+
+CREATE TABLE IF NOT EXISTS `nexus`.`user_pending_counters` (
+  `user_id` INT UNSIGNED NOT NULL,
+  `pending_count` INT UNSIGNED NOT NULL DEFAULT 0,
+  `updated_at` DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY (`user_id`),
+  CONSTRAINT `fk_pending_counters_user`
+    FOREIGN KEY (`user_id`)
+    REFERENCES `nexus`.`users` (`id`)
+    ON DELETE CASCADE)
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8mb4
+COLLATE = utf8mb4_0900_ai_ci;
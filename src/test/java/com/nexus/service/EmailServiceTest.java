@@ -0,0 +1,175 @@
+package com.nexus.service;
+
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EmailService.sendBatch contra un servidor SMTP local mínimo
+ * El servidor rechaza con 550 los destinatarios que contienen "rechazado".
+ */
+class EmailServiceTest {
+
+    private SmtpStub smtp;
+    private JavaMailSenderImpl mailSender;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStub();
+        smtp.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "2000");
+
+        emailService = new EmailService(mailSender);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "nexus@example.com");
+        ReflectionTestUtils.setField(emailService, "appName", "Nexus");
+        ReflectionTestUtils.setField(emailService, "appLogoUrl", "");
+        emailService.loadTemplates();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.stop();
+    }
+
+    @Test
+    void partialFailureReportsOnlyRejectedMessages() throws Exception {
+        MimeMessage first = emailService.createVerificationMessage("ana@example.com", "123456");
+        MimeMessage rejected = emailService.createVerificationMessage("rechazado@example.com", "234567");
+        MimeMessage last = emailService.createPasswordResetMessage("luis@example.com", "345678");
+
+        Map<MimeMessage, Exception> failed = emailService.sendBatch(List.of(first, rejected, last));
+
+        assertThat(failed).containsOnlyKeys(rejected);
+        assertThat(smtp.delivered).containsExactly("ana@example.com", "luis@example.com");
+        // Todo el lote por una sola conexión
+        assertThat(smtp.connections).isEqualTo(1);
+        assertThat(smtp.bodies.get(0)).contains("123456");
+        assertThat(smtp.bodies.get(1)).contains("345678");
+    }
+
+    @Test
+    void connectionFailureMarksEveryMessage() throws Exception {
+        MimeMessage first = emailService.createVerificationMessage("ana@example.com", "123456");
+        MimeMessage second = emailService.createVerificationMessage("luis@example.com", "234567");
+        smtp.stop();
+
+        Map<MimeMessage, Exception> failed = emailService.sendBatch(List.of(first, second));
+
+        assertThat(failed).containsOnlyKeys(first, second);
+    }
+
+    @Test
+    void emptyBatchDoesNotConnect() {
+        assertThat(emailService.sendBatch(List.of())).isEmpty();
+        assertThat(smtp.connections).isZero();
+    }
+
+    /**
+     * Servidor SMTP de una sola conexión a la vez, sin AUTH ni STARTTLS
+     */
+    private static final class SmtpStub {
+
+        private final ServerSocket serverSocket;
+        private final List<String> delivered = new CopyOnWriteArrayList<>();
+        private final List<String> bodies = new CopyOnWriteArrayList<>();
+        private volatile int connections;
+        private Thread acceptor;
+
+        private SmtpStub() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        }
+
+        private int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void start() {
+            acceptor = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try (Socket socket = serverSocket.accept()) {
+                        connections++;
+                        serve(socket);
+                    } catch (IOException e) {
+                        // Servidor cerrado o cliente desconectado
+                    }
+                }
+            }, "smtp-stub");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private void stop() throws IOException {
+            serverSocket.close();
+        }
+
+        private void serve(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            reply(out, "220 localhost ESMTP stub");
+
+            String recipient = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 localhost");
+                } else if (command.startsWith("MAIL FROM")) {
+                    recipient = null;
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT TO")) {
+                    String address = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                    if (address.contains("rechazado")) {
+                        reply(out, "550 No such user");
+                    } else {
+                        recipient = address;
+                        reply(out, "250 OK");
+                    }
+                } else if (command.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    StringBuilder body = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        body.append(line).append('\n');
+                    }
+                    delivered.add(recipient);
+                    bodies.add(body.toString());
+                    reply(out, "250 OK queued");
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    // RSET, NOOP
+                    reply(out, "250 OK");
+                }
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+    }
+}
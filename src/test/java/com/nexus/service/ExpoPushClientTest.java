@@ -0,0 +1,227 @@
+package com.nexus.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexus.dto.PushMessage;
+import com.nexus.repository.UserRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ExpoPushClient y PushDeliveryService contra un servidor HTTP local que imita la API de Expo
+ */
+class ExpoPushClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> sendRequests = new CopyOnWriteArrayList<>();
+    private final List<JsonNode> receiptRequests = new CopyOnWriteArrayList<>();
+    // Content-Encoding de cada petición a /send ("identity" si no viene)
+    private final List<String> sendEncodings = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private volatile int sendStatus;
+    private volatile String sendResponse;
+    private volatile String receiptsResponse;
+    private ExpoPushClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/send", exchange -> {
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            sendEncodings.add(encoding != null ? encoding : "identity");
+            sendRequests.add(readJson(exchange));
+            respond(exchange, sendStatus, sendResponse);
+        });
+        server.createContext("/receipts", exchange -> {
+            receiptRequests.add(readJson(exchange));
+            respond(exchange, 200, receiptsResponse);
+        });
+        server.start();
+
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        client = new ExpoPushClient(objectMapper);
+        ReflectionTestUtils.setField(client, "sendUrl", base + "/send");
+        ReflectionTestUtils.setField(client, "receiptsUrl", base + "/receipts");
+        ReflectionTestUtils.setField(client, "accessToken", "");
+        ReflectionTestUtils.setField(client, "connectTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(client, "requestTimeoutMs", 5000L);
+        client.init();
+        sendStatus = 200;
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void sendParsesTicketsInMessageOrder() throws Exception {
+        sendResponse = "{\"data\":["
+            + "{\"status\":\"ok\",\"id\":\"ticket-1\"},"
+            + "{\"status\":\"error\",\"message\":\"not registered\",\"details\":{\"error\":\"DeviceNotRegistered\"}}"
+            + "]}";
+
+        List<ExpoPushClient.Ticket> tickets = client.send(List.of(message("token-a"), message("token-b")));
+
+        assertThat(tickets).hasSize(2);
+        assertThat(tickets.get(0).isOk()).isTrue();
+        assertThat(tickets.get(0).getId()).isEqualTo("ticket-1");
+        assertThat(tickets.get(1).isOk()).isFalse();
+        assertThat(tickets.get(1).getError()).isEqualTo("DeviceNotRegistered");
+        assertThat(tickets.get(1).getMessage()).isEqualTo("not registered");
+
+        JsonNode body = sendRequests.get(0);
+        assertThat(body).hasSize(2);
+        assertThat(body.get(0).path("to").asText()).isEqualTo("token-a");
+        assertThat(body.get(0).path("data").path("type").asText()).isEqualTo("TEST");
+    }
+
+    @Test
+    void largeBodiesAreSentCompressed() throws Exception {
+        sendResponse = "{\"data\":[]}";
+        List<PushMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            messages.add(message("token-" + i));
+        }
+
+        client.send(messages);
+
+        assertThat(sendEncodings).containsExactly("gzip");
+        // El stub descomprime: el cuerpo llega completo
+        assertThat(sendRequests.get(0)).hasSize(40);
+    }
+
+    @Test
+    void smallBodiesAreSentUncompressed() throws Exception {
+        sendResponse = "{\"data\":[{\"status\":\"ok\",\"id\":\"ticket-1\"}]}";
+
+        client.send(List.of(message("token-a")));
+
+        assertThat(sendEncodings).containsExactly("identity");
+        assertThat(sendRequests.get(0)).hasSize(1);
+    }
+
+    @Test
+    void sendFailsOnNon2xx() {
+        sendStatus = 503;
+        sendResponse = "{}";
+
+        assertThatThrownBy(() -> client.send(List.of(message("token-a"))))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("503");
+    }
+
+    @Test
+    void getReceiptsParsesOnlyReadyReceipts() throws Exception {
+        receiptsResponse = "{\"data\":{"
+            + "\"ticket-1\":{\"status\":\"ok\"},"
+            + "\"ticket-2\":{\"status\":\"error\",\"message\":\"gone\",\"details\":{\"error\":\"DeviceNotRegistered\"}}"
+            + "}}";
+
+        Map<String, ExpoPushClient.Receipt> receipts = client.getReceipts(List.of("ticket-1", "ticket-2", "ticket-3"));
+
+        assertThat(receipts).containsOnlyKeys("ticket-1", "ticket-2");
+        assertThat(receipts.get("ticket-1").isOk()).isTrue();
+        assertThat(receipts.get("ticket-2").getError()).isEqualTo("DeviceNotRegistered");
+        assertThat(receiptRequests.get(0).path("ids")).hasSize(3);
+    }
+
+    @Test
+    void deliveryPrunesTokensReportedAsNotRegistered() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.clearFcmTokenIn(anyCollection())).thenReturn(1);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+
+        PushDeliveryService delivery = new PushDeliveryService(client, userRepository, transactionTemplate);
+        // Recibos consultables en cuanto se envía el lote
+        ReflectionTestUtils.setField(delivery, "receiptDelayMinutes", -1L);
+
+        // Ticket con error inmediato: se borra el token al momento
+        sendResponse = "{\"data\":["
+            + "{\"status\":\"ok\",\"id\":\"ticket-1\"},"
+            + "{\"status\":\"error\",\"details\":{\"error\":\"DeviceNotRegistered\"}}"
+            + "]}";
+        delivery.sendNow(List.of(message("token-a"), message("token-b")));
+        verify(userRepository).clearFcmTokenIn(Set.of("token-b"));
+
+        // Recibo con error posterior: se borra el token del ticket aceptado
+        receiptsResponse = "{\"data\":{\"ticket-1\":{\"status\":\"error\",\"details\":{\"error\":\"DeviceNotRegistered\"}}}}";
+        delivery.pollReceipts();
+        verify(userRepository).clearFcmTokenIn(Set.of("token-a"));
+        assertThat(receiptRequests.get(0).path("ids").get(0).asText()).isEqualTo("ticket-1");
+
+        // El recibo ya consumido no se vuelve a consultar
+        delivery.pollReceipts();
+        assertThat(receiptRequests).hasSize(1);
+    }
+
+    @Test
+    void deliveryKeepsTokensOnOtherErrors() {
+        UserRepository userRepository = mock(UserRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        PushDeliveryService delivery = new PushDeliveryService(client, userRepository, transactionTemplate);
+
+        sendResponse = "{\"data\":[{\"status\":\"error\",\"details\":{\"error\":\"MessageRateExceeded\"}}]}";
+        delivery.sendNow(List.of(message("token-a")));
+
+        verify(userRepository, never()).clearFcmTokenIn(anyCollection());
+    }
+
+    private static PushMessage message(String token) {
+        return PushMessage.builder()
+            .to(token)
+            .title("Título")
+            .body("Cuerpo del mensaje de prueba")
+            .data(Map.of("type", "TEST"))
+            .build();
+    }
+
+    private JsonNode readJson(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        try (InputStream body = in) {
+            return objectMapper.readTree(body);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.nexus.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por email de renderizar la plantilla de verificación
+ *
+ * Se prepara igual que EmailService: appName y logo fijados con bind() al
+ * arrancar, y en cada envío solo se rellena el código. Se compara con volver
+ * a sustituir los marcadores sobre el texto fuente en cada envío.
+ *
+ * No lo ejecuta surefire; se lanza con main() desde el IDE o con
+ * java -cp target/test-classes:&lt;classpath de test&gt; com.nexus.util.HtmlTemplateBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlTemplateBenchmark {
+
+    private static final String LOGO_BLOCK = "<div class='logo'>&#127881;</div>";
+    private static final int CODES = 1024;
+
+    private String source;
+    private HtmlTemplate bound;
+    private StringBuilder buffer;
+    private String[] codes;
+    private int sequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = HtmlTemplateBenchmark.class.getClassLoader()
+                .getResourceAsStream("templates/email/verification.html")) {
+            if (in == null) {
+                throw new IOException("Plantilla templates/email/verification.html no encontrada");
+            }
+            source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        bound = HtmlTemplate.compile(source).bind(Map.of("appName", "Nexus", "logoBlock", LOGO_BLOCK));
+        buffer = new StringBuilder(8 * 1024);
+        // Códigos generados de antemano para no medir su formato
+        codes = new String[CODES];
+        for (int i = 0; i < CODES; i++) {
+            codes[i] = String.format("%06d", i * 977 % 1_000_000);
+        }
+    }
+
+    /**
+     * Camino de EmailService: buffer reutilizado por hilo
+     */
+    @Benchmark
+    public String renderReusedBuffer() {
+        buffer.setLength(0);
+        bound.renderTo(buffer, Map.of("code", nextCode()));
+        return buffer.toString();
+    }
+
+    @Benchmark
+    public String renderNewBuffer() {
+        return bound.render(Map.of("code", nextCode()));
+    }
+
+    /**
+     * Referencia: sustituir todos los marcadores del texto fuente en cada envío
+     */
+    @Benchmark
+    public String replaceOnSource() {
+        return source
+            .replace("{{logoBlock}}", LOGO_BLOCK)
+            .replace("{{appName}}", "Nexus")
+            .replace("{{code}}", nextCode());
+    }
+
+    /**
+     * Un código distinto por envío, como en producción
+     */
+    private String nextCode() {
+        sequence = (sequence + 1) & (CODES - 1);
+        return codes[sequence];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(HtmlTemplateBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
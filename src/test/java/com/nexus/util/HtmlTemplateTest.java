@@ -0,0 +1,82 @@
+package com.nexus.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HtmlTemplateTest {
+
+    @Test
+    void compileSplitsLiteralsAndSlots() {
+        HtmlTemplate template = HtmlTemplate.compile("<p>{{ appName }}</p><b>{{code}}</b>");
+
+        assertThat(template.getSlots()).containsExactly("appName", "code");
+        assertThat(template.render(Map.of("appName", "Nexus", "code", "123456")))
+            .isEqualTo("<p>Nexus</p><b>123456</b>");
+    }
+
+    @Test
+    void compileWithoutSlotsKeepsText() {
+        HtmlTemplate template = HtmlTemplate.compile("<p>sin marcadores</p>");
+
+        assertThat(template.getSlots()).isEmpty();
+        assertThat(template.render(Map.of())).isEqualTo("<p>sin marcadores</p>");
+    }
+
+    @Test
+    void compileRejectsUnclosedSlot() {
+        assertThatThrownBy(() -> HtmlTemplate.compile("<p>{{code</p>"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("posición 3");
+    }
+
+    @Test
+    void bindFixesSomeSlotsAndKeepsTheRestOpen() {
+        HtmlTemplate template = HtmlTemplate.compile("{{appName}}: {{code}} - {{appName}}");
+
+        HtmlTemplate bound = template.bind(Map.of("appName", "Nexus"));
+
+        assertThat(bound.getSlots()).containsExactly("code");
+        assertThat(bound.render(Map.of("code", "42"))).isEqualTo("Nexus: 42 - Nexus");
+        // La plantilla original no cambia
+        assertThat(template.getSlots()).containsExactly("appName", "code", "appName");
+    }
+
+    @Test
+    void bindAdjacentSlots() {
+        HtmlTemplate bound = HtmlTemplate.compile("{{a}}{{b}}{{c}}").bind(Map.of("a", "1", "c", "3"));
+
+        assertThat(bound.getSlots()).containsExactly("b");
+        assertThat(bound.render(Map.of("b", "2"))).isEqualTo("123");
+    }
+
+    @Test
+    void renderLeavesMissingValuesEmpty() {
+        HtmlTemplate template = HtmlTemplate.compile("[{{code}}]");
+
+        assertThat(template.render(Map.of())).isEqualTo("[]");
+    }
+
+    @Test
+    void renderToAppendsToExistingBuffer() {
+        HtmlTemplate template = HtmlTemplate.compile("<b>{{code}}</b>");
+        StringBuilder out = new StringBuilder("prefijo:");
+
+        template.renderTo(out, Map.of("code", "7"));
+        template.renderTo(out, Map.of("code", "8"));
+
+        assertThat(out.toString()).isEqualTo("prefijo:<b>7</b><b>8</b>");
+    }
+
+    @Test
+    void valuesAreInsertedVerbatim() {
+        HtmlTemplate template = HtmlTemplate.compile("{{code}}");
+
+        // Un valor con marcadores no se vuelve a interpretar
+        assertThat(template.bind(Map.of("code", "{{otro}}")).getSlots()).isEmpty();
+        assertThat(template.render(Map.of("code", "{{otro}}"))).isEqualTo("{{otro}}");
+    }
+}